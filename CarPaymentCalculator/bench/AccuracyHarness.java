@@ -0,0 +1,341 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Randomized round trip and differential check of the solver family behind FinanceCalculator. Each
+ * 					trip draws a loan (principal, APR, term) and solves it back from its monthly amount. Every gated
+ * 					check has a fixed absolute bound:
+ *
+ * 						PV				the loan amount from the QuoteEngine monthly amount, within a cent
+ * 						TERM			the number of payments: exactly n for the payment that pays the loan off in
+ * 										n + 1/2 payments, and exactly n - 1 (the int truncation) for n - 1/2
+ * 						APR(newton)		the APR from the Newton solve, capped at MAX_NEWTON_ITERATIONS steps, within
+ * 										NEWTON_APR_TOLERANCE; a solve that hits the cap is counted as not converged
+ * 						APR(bounded)	the APR from the bounded solve, within BOUNDED_APR_TOLERANCE
+ * 						PMT(batch)		the BatchQuoteEngine kernel against QuoteEngine, within BATCH_TOLERANCE
+ * 						PAYOFF			the PayoffEngine payoff of the exact payment: exactly n payments, the last
+ * 										within a cent of the payment. Skipped for payments under a cent, which
+ * 										PayoffEngine can treat as paid off a month early (HALF_CENT)
+ *
+ * 					The QuoteEngine PMT and PV formulas evaluate (1 + i) in float, so their monthly amount is that of
+ * 					a rate a little off i, while the term, APR and payoff solves work in double. TERM, APR and PAYOFF
+ * 					are therefore solved from exact payments: the PMT formula at the same float monthly rate with
+ * 					(1 + i) in double (for a 0% loan, principal / n, which pays the loan off exactly). The error the
+ * 					float (1 + i) causes is reported on its own ungated line:
+ *
+ * 						APR(float 1+i)	the APR the bounded solve finds, before rounding, for the QuoteEngine monthly
+ * 										amount. It grows as the rate falls, to about 0.8 APR points at 0.01%. It is
+ * 										the arithmetic FinanceCalculator has always used, kept so results do not
+ * 										change; the line shows it on every run instead of hiding it in a tolerance.
+ *
+ * 					The APR tolerances cover half a step of the 5-place monthly rate the solves round to and the float
+ * 					the APR is returned in (APR_ROUNDING), plus the solve's own stopping tolerance. The Newton solve
+ * 					returns its initial guess when the first step is already below QuoteEngine.EPSILON, so it is
+ * 					allowed up to that step.
+ *
+ * 					Loans are drawn from four regions: typical car loans, 0% promotions, very long terms and tiny
+ * 					principals. For every region and check the harness reports the trips, the largest absolute and
+ * 					relative error, the trips outside the tolerance and the worst loan, and it exits with status 1
+ * 					when any trip of a gated check is outside its tolerance or did not converge, so a faster engine
+ * 					can be gated on accuracy as well as speed. Trips run in chunks on a ForkJoinPool, each chunk with
+ * 					its own SplittableRandom seeded from the seed and the chunk index, so a seed always draws the
+ * 					same loans.
+ *
+ * 					Usage: java -cp bin:bin-bench AccuracyHarness [trips per region] [seed]
+ *
+ **********************************************************************************************************************
+ **/
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class AccuracyHarness {
+	static final int DEFAULT_TRIPS = 1 << 20;			// round trips per region
+	static final long DEFAULT_SEED = 42;
+	static final int CHUNK_TRIPS = 4096;				// trips run by one task, each chunk with its own random
+	static final int MAX_NEWTON_ITERATIONS = 1000;
+	static final double CENT = 0.01;
+	static final double APR_ROUNDING = 0.0061;			// APR points; half a step of the 5-place monthly rate, and
+														// the float it is returned in
+	static final double NEWTON_APR_TOLERANCE = APR_ROUNDING + 1200 * QuoteEngine.EPSILON;
+	static final double BOUNDED_APR_TOLERANCE = APR_ROUNDING + 1200 * QuoteEngine.BOUNDED_TOLERANCE;
+	static final double BATCH_TOLERANCE = 1e-9;			// relative, see PaymentKernel.getMaxGrowthUlpError
+
+	// Spreads the chunk seeds apart (the 64-bit golden ratio)
+	private static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+	static final String[] REGIONS = { "typical", "0% apr", "long term", "tiny principal" };
+	static final String[] CHECKS = { "PV", "TERM", "APR(newton)", "APR(bounded)", "PMT(batch)", "PAYOFF",
+			"APR(float 1+i)" };
+	static final boolean[] GATED = { true, true, true, true, true, true, false };
+	private static final int PV = 0;
+	private static final int TERM = 1;
+	private static final int APR_NEWTON = 2;
+	private static final int APR_BOUNDED = 3;
+	private static final int PMT_BATCH = 4;
+	private static final int PAYOFF = 5;
+	private static final int APR_FLOAT = 6;
+
+	private final QuoteEngine engine = new QuoteEngine();
+	private final BatchQuoteEngine batch = new BatchQuoteEngine();
+
+	// Largest errors, trips outside the tolerance and the loan with the largest error, by region and check
+	private final long[][] trips = new long[REGIONS.length][CHECKS.length];
+	private final double[][] maxAbsolute = new double[REGIONS.length][CHECKS.length];
+	private final double[][] maxRelative = new double[REGIONS.length][CHECKS.length];
+	private final long[][] failures = new long[REGIONS.length][CHECKS.length];
+	private final double[][][] worstLoans = new double[REGIONS.length][CHECKS.length][3];
+	private final long[] notConverged = new long[REGIONS.length];
+
+	public static void main(String[] args) {
+		int tripsPerRegion = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TRIPS;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_SEED;
+
+		AccuracyHarness harness = new AccuracyHarness();
+		long start = System.nanoTime();
+		boolean passed = harness.run(tripsPerRegion, seed, Runtime.getRuntime().availableProcessors());
+		harness.print();
+		System.out.printf(" %d round trips per region in %.1f s with kernel %s%n", tripsPerRegion,
+				(System.nanoTime() - start) / 1e9, harness.batch.getKernel());
+		if (!passed) {
+			System.out.println(" FAILED: trips outside their tolerance or not converged.");
+			System.exit(1);
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Runs the round trips of every region and returns true when every trip is within its tolerance.
+	//-----------------------------------------------------------------------------------------------------------------
+	boolean run(int tripsPerRegion, long seed, int parallelism) {
+		int chunksPerRegion = (tripsPerRegion + CHUNK_TRIPS - 1) / CHUNK_TRIPS;
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.invoke(new TripTask(tripsPerRegion, chunksPerRegion, seed, 0, chunksPerRegion * REGIONS.length));
+		}
+		finally {
+			pool.shutdown();
+		}
+		for (int region = 0; region < REGIONS.length; region++) {
+			if (notConverged[region] > 0) {
+				return false;
+			}
+			for (int check = 0; check < CHECKS.length; check++) {
+				if (GATED[check] && failures[region][check] > 0) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	// Runs the chunks from start up to, not including, end, splitting in half until one chunk is left
+	private final class TripTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int tripsPerRegion;
+		private final int chunksPerRegion;
+		private final long seed;
+		private final int start;
+		private final int end;
+
+		TripTask(int tripsPerRegion, int chunksPerRegion, long seed, int start, int end) {
+			this.tripsPerRegion = tripsPerRegion;
+			this.chunksPerRegion = chunksPerRegion;
+			this.seed = seed;
+			this.start = start;
+			this.end = end;
+		}
+
+		protected void compute() {
+			if (end - start > 1) {
+				int middle = (start + end) >>> 1;
+				invokeAll(new TripTask(tripsPerRegion, chunksPerRegion, seed, start, middle),
+						new TripTask(tripsPerRegion, chunksPerRegion, seed, middle, end));
+				return;
+			}
+			int region = start / chunksPerRegion;
+			int first = (start % chunksPerRegion) * CHUNK_TRIPS;
+			int size = Math.min(CHUNK_TRIPS, tripsPerRegion - first);
+			Chunk chunk = new Chunk(size);
+			chunk.run(region, new SplittableRandom(seed + start * SEED_INCREMENT));
+			merge(region, chunk);
+		}
+	}
+
+	// Loans and errors of one chunk of trips in one region
+	private final class Chunk {
+		final double[] loanAmounts;
+		final float[] aprs;
+		final int[] terms;
+		final double[] batchPayments;
+		final double[] out = new double[3];
+		final double[] root = new double[1];
+
+		final long[] trips = new long[CHECKS.length];
+		final double[] maxAbsolute = new double[CHECKS.length];
+		final double[] maxRelative = new double[CHECKS.length];
+		final long[] failures = new long[CHECKS.length];
+		final double[][] worstLoans = new double[CHECKS.length][3];
+		long notConverged;
+
+		Chunk(int size) {
+			loanAmounts = new double[size];
+			aprs = new float[size];
+			terms = new int[size];
+			batchPayments = new double[size];
+		}
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Draws the loans of the chunk and runs every check on them.
+		//-------------------------------------------------------------------------------------------------------------
+		void run(int region, SplittableRandom random) {
+			for (int k = 0; k < loanAmounts.length; k++) {
+				draw(region, random, k);
+			}
+			batch.payments(loanAmounts, aprs, terms, batchPayments);
+
+			for (int k = 0; k < loanAmounts.length; k++) {
+				double loanAmount = loanAmounts[k];
+				float apr = aprs[k];
+				int n = terms[k];
+				float interestRate = QuoteEngine.monthlyRate(apr);
+				double paymentAmount = engine.payment(loanAmount, apr, n).getPaymentAmount();
+				double exactPayment = exactPayment(loanAmount, interestRate, n);
+
+				double presentValue = engine.presentValue(apr, n, paymentAmount).getLoanAmount();
+				if (interestRate == 0.0) {
+					// The first payment carries the lost pennies, so the 0% loan amount is n average payments
+					presentValue = engine.presentValue(apr, n, exactPayment).getLoanAmount();
+				}
+				record(PV, k, Math.abs(presentValue - loanAmount), loanAmount, CENT);
+
+				int longerTerm = engine.numberOfPayments(loanAmount, apr,
+						exactPayment(loanAmount, interestRate, n + 0.5)).getNumberOfPayments();
+				int shorterTerm = engine.numberOfPayments(loanAmount, apr,
+						exactPayment(loanAmount, interestRate, n - 0.5)).getNumberOfPayments();
+				record(TERM, k, Math.max(Math.abs(longerTerm - n), Math.abs(shorterTerm - (n - 1))), n, 0);
+
+				QuoteResult newton = engine.interestRate(loanAmount, n, exactPayment, MAX_NEWTON_ITERATIONS);
+				if (newton.getIterations() > MAX_NEWTON_ITERATIONS) {
+					notConverged++;
+				}
+				record(APR_NEWTON, k, Math.abs(newton.getInterestRate() * 1200 - apr), apr, NEWTON_APR_TOLERANCE);
+
+				double bounded = engine.boundedInterestRate(loanAmount, n, exactPayment).getInterestRate();
+				record(APR_BOUNDED, k, Math.abs(bounded * 1200 - apr), apr, BOUNDED_APR_TOLERANCE);
+
+				double batchError = Math.abs(batchPayments[k] - paymentAmount);
+				record(PMT_BATCH, k, batchError, paymentAmount, BATCH_TOLERANCE * paymentAmount);
+
+				if (exactPayment >= CENT) {
+					PayoffEngine.solve(loanAmount, interestRate, exactPayment, null, null, 0, 0, out);
+					boolean paidOff = out[0] == n && Math.abs(out[1] - exactPayment) <= CENT;
+					record(PAYOFF, k, paidOff ? 0 : Math.max(Math.abs(out[0] - n), Math.abs(out[1] - exactPayment)),
+							n, 0);
+				}
+
+				if (interestRate != 0.0) {
+					engine.boundedInterestRate(loanAmount, n, paymentAmount, interestRate, root);
+					record(APR_FLOAT, k, Math.abs(root[0] * 1200 - apr), apr, 0);
+				}
+			}
+		}
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Draws loan k from the region: typical car loans, 0% promotions, 20 to 100 year terms, or $0.01 to $100.
+		//-------------------------------------------------------------------------------------------------------------
+		void draw(int region, SplittableRandom random, int k) {
+			switch (region) {
+			case 0:
+				loanAmounts[k] = Math.round((5000 + random.nextDouble() * 75000) * 100) / 100.0;
+				aprs[k] = (200 + random.nextInt(2301)) / 100f;
+				terms[k] = 12 + random.nextInt(85);
+				break;
+			case 1:
+				loanAmounts[k] = Math.round((1000 + random.nextDouble() * 79000) * 100) / 100.0;
+				aprs[k] = 0f;
+				terms[k] = 1 + random.nextInt(120);
+				break;
+			case 2:
+				loanAmounts[k] = Math.round((50000 + random.nextDouble() * 950000) * 100) / 100.0;
+				aprs[k] = (100 + random.nextInt(1401)) / 100f;
+				terms[k] = 240 + random.nextInt(961);
+				break;
+			default:
+				loanAmounts[k] = (1 + random.nextInt(10000)) / 100.0;
+				aprs[k] = random.nextInt(3001) / 100f;
+				terms[k] = 1 + random.nextInt(120);
+				break;
+			}
+		}
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Records the absolute error of a check on loan k, relative to the expected value, against its tolerance.
+		//-------------------------------------------------------------------------------------------------------------
+		void record(int check, int k, double error, double expected, double tolerance) {
+			trips[check]++;
+			if (GATED[check] && !(error <= tolerance)) {
+				failures[check]++;
+			}
+			if (!(error <= maxAbsolute[check])) {
+				maxAbsolute[check] = error;
+				worstLoans[check][0] = loanAmounts[k];
+				worstLoans[check][1] = aprs[k];
+				worstLoans[check][2] = terms[k];
+			}
+			if (expected != 0) {
+				maxRelative[check] = Math.max(maxRelative[check], error / Math.abs(expected));
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the monthly amount that pays a loan off in exactly numberOfPayments payments, which may be fractional,
+	// at the float monthly rate with (1 + i) evaluated in double like the term, APR and payoff solves. A 0% loan
+	// returns the average payment.
+	//-----------------------------------------------------------------------------------------------------------------
+	static double exactPayment(double loanAmount, float interestRate, double numberOfPayments) {
+		if (interestRate == 0.0) {
+			return loanAmount / numberOfPayments;
+		}
+		double rate = interestRate;
+		double growth = Math.pow(1 + rate, numberOfPayments);
+		return loanAmount * rate * growth / (growth - 1);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Adds the results of a chunk to the totals of its region.
+	//-----------------------------------------------------------------------------------------------------------------
+	private synchronized void merge(int region, Chunk chunk) {
+		notConverged[region] += chunk.notConverged;
+		for (int check = 0; check < CHECKS.length; check++) {
+			trips[region][check] += chunk.trips[check];
+			failures[region][check] += chunk.failures[check];
+			maxRelative[region][check] = Math.max(maxRelative[region][check], chunk.maxRelative[check]);
+			if (!(chunk.maxAbsolute[check] <= maxAbsolute[region][check])) {
+				maxAbsolute[region][check] = chunk.maxAbsolute[check];
+				worstLoans[region][check] = chunk.worstLoans[check].clone();
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Prints the errors of every region and check.
+	//-----------------------------------------------------------------------------------------------------------------
+	synchronized void print() {
+		System.out.printf(" %-16s %-14s %10s %14s %14s %10s   %s%n", "Region", "Check", "Trips", "Max abs",
+				"Max rel", "Failures", "Worst loan (principal, apr, months)");
+		for (int region = 0; region < REGIONS.length; region++) {
+			for (int check = 0; check < CHECKS.length; check++) {
+				double[] worst = worstLoans[region][check];
+				System.out.printf(" %-16s %-14s %10d %14.6g %14.6g %10s   %.2f, %.2f%%, %d%n", REGIONS[region],
+						CHECKS[check], trips[region][check], maxAbsolute[region][check], maxRelative[region][check],
+						GATED[check] ? Long.toString(failures[region][check]) : "-", worst[0], worst[1],
+						(int) worst[2]);
+			}
+			System.out.printf(" %-16s %-14s %10d%n", REGIONS[region], "not converged", notConverged[region]);
+		}
+	}
+}
@@ -0,0 +1,330 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Repeatable benchmark of the loan calculations. Each scenario is warmed up, then measured over
+ * 					several timed iterations, and reports throughput (ops/s), average time (ns/op) and allocation rate
+ * 					(bytes/op, from the per-thread allocation counters of the HotSpot ThreadMXBean).
+ *
+ * 					Inputs are drawn once from a fixed seed over a realistic mix of loans: 10% are 0% promotions,
+ * 					the rest have an APR between 2% and 25%, and terms run from 12 to 96 months.
+ *
+ * 					Usage: java -cp bin:bin-bench QuoteBenchmark [scenario name filter]
+ *
+ **********************************************************************************************************************
+ **/
+
+import java.lang.management.ManagementFactory;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class QuoteBenchmark {
+	static final int SAMPLES = 4096;					// size of the input tables, a power of two
+	static final int WARMUP_ITERATIONS = 5;
+	static final int MEASUREMENT_ITERATIONS = 5;
+	static final long ITERATION_NANOS = 1_000_000_000L;
+	static final long CHECK_INTERVAL_NANOS = 10_000;	// longest time between clock checks once calibrated
+	static final int MAX_BATCH = 256;					// most calls between clock checks
+	static final int BOOK_SIZE = 1 << 20;				// loans in the repricing book, a multiple of SAMPLES
+
+	// Input tables for the scenarios
+	final double[] loanAmounts = new double[SAMPLES];
+	final float[] aprs = new float[SAMPLES];
+	final int[] terms = new int[SAMPLES];
+	final double[] payments = new double[SAMPLES];
+	final long[] loanCents = new long[SAMPLES];
+	final int[] basisPoints = new int[SAMPLES];
+	final long[] paymentCents = new long[SAMPLES];
+	final double[] batchOut = new double[SAMPLES];
+
+	// Loan book for the repricing scenarios, the input tables repeated
+	final double[] bookPayments = new double[BOOK_SIZE];
+	final float[] bookAprs = new float[BOOK_SIZE];
+	final int[] bookTerms = new int[BOOK_SIZE];
+	final double[] bookBalances = new double[BOOK_SIZE];
+	final double[] bookNewPayments = new double[BOOK_SIZE];
+
+	final QuoteEngine engine = new QuoteEngine();
+	final BatchQuoteEngine batch = new BatchQuoteEngine();
+	final FixedPointCalculator fixedPoint = new FixedPointCalculator();
+
+	// Output formatting, the formatters the menu used before QuoteFormatter and a reused line
+	final DecimalFormat decimalPrincipal = new DecimalFormat("$###,###0.00");
+	final DecimalFormat decimalPercent = new DecimalFormat("0.0000%");
+	final DecimalFormat decimalCount = new DecimalFormat("###");
+	final DecimalFormat decimalMonthlyAmount = new DecimalFormat("$###,###.00");
+	final StringBuilder line = new StringBuilder(256);
+
+	// Keeps results reachable so the JIT cannot remove the work being measured
+	static volatile double sink;
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// One operation of a scenario. The index selects the inputs, and the result is consumed by the benchmark.
+	//-----------------------------------------------------------------------------------------------------------------
+	interface Operation {
+		double run(int index);
+	}
+
+	// A named operation and the number of quotes each call produces
+	static final class Scenario {
+		final String name;
+		final int quotesPerCall;
+		final int threads;
+		final Operation operation;
+
+		Scenario(String name, int quotesPerCall, int threads, Operation operation) {
+			this.name = name;
+			this.quotesPerCall = quotesPerCall;
+			this.threads = threads;
+			this.operation = operation;
+		}
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		String filter = args.length > 0 ? args[0] : "";
+		QuoteBenchmark benchmark = new QuoteBenchmark(42);
+
+		System.out.printf("%-40s %8s %16s %12s %12s%n", "Scenario", "Threads", "Quotes/s", "ns/quote", "B/quote");
+		for (Scenario scenario : benchmark.scenarios()) {
+			if (scenario.name.contains(filter)) {
+				benchmark.measure(scenario);
+			}
+		}
+	}
+
+	QuoteBenchmark(long seed) {
+		Random random = new Random(seed);
+		for (int k = 0; k < SAMPLES; k++) {
+			loanAmounts[k] = Math.round((5000 + random.nextDouble() * 75000) * 100) / 100.0;
+			aprs[k] = random.nextInt(10) == 0 ? 0f : (200 + random.nextInt(2301)) / 100f;
+			terms[k] = 12 + random.nextInt(85);
+			payments[k] = engine.payment(loanAmounts[k], aprs[k], terms[k]).getPaymentAmount();
+			loanCents[k] = FixedPointCalculator.toCents(loanAmounts[k]);
+			basisPoints[k] = FixedPointCalculator.toBasisPoints(aprs[k]);
+			paymentCents[k] = fixedPoint.payment(loanCents[k], basisPoints[k], terms[k]);
+		}
+		for (int k = 0; k < BOOK_SIZE; k++) {
+			bookPayments[k] = payments[k & (SAMPLES - 1)];
+			bookAprs[k] = aprs[k & (SAMPLES - 1)];
+			bookTerms[k] = terms[k & (SAMPLES - 1)];
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Lists every scenario. Scenarios for other parts of the calculator are added here.
+	//-----------------------------------------------------------------------------------------------------------------
+	List<Scenario> scenarios() {
+		int cores = Runtime.getRuntime().availableProcessors();
+		List<Scenario> scenarios = new ArrayList<Scenario>();
+
+		// Single quote solves
+		scenarios.add(new Scenario("engine.payment", 1, 1,
+				k -> engine.payment(loanAmounts[k], aprs[k], terms[k]).getPaymentAmount()));
+		scenarios.add(new Scenario("engine.presentValue", 1, 1,
+				k -> engine.presentValue(aprs[k], terms[k], payments[k]).getLoanAmount()));
+		scenarios.add(new Scenario("engine.numberOfPayments", 1, 1,
+				k -> engine.numberOfPayments(loanAmounts[k], aprs[k], payments[k]).getNumberOfPayments()));
+		scenarios.add(new Scenario("engine.interestRate", 1, 1,
+				k -> engine.interestRate(loanAmounts[k], terms[k], payments[k], 1000).getInterestRate()));
+		scenarios.add(new Scenario("engine.boundedInterestRate", 1, 1,
+				k -> engine.boundedInterestRate(loanAmounts[k], terms[k], payments[k]).getInterestRate()));
+		scenarios.add(new Scenario("calculator.payment", 1, 1,
+				k -> new FinanceCalculator().calculate(loanAmounts[k], aprs[k], terms[k])));
+
+		// Cached annuity factor quotes, sized to hold every (rate, term) pair of the input tables
+		AnnuityFactorCache cache = new AnnuityFactorCache(2 * SAMPLES);
+		scenarios.add(new Scenario("cache.payment", 1, 1, k -> cache.payment(loanAmounts[k], aprs[k], terms[k])));
+		scenarios.add(new Scenario("cache.presentValue", 1, 1,
+				k -> cache.presentValue(aprs[k], terms[k], payments[k])));
+
+		// Fixed-point solves
+		scenarios.add(new Scenario("fixedPoint.payment", 1, 1,
+				k -> fixedPoint.payment(loanCents[k], basisPoints[k], terms[k])));
+		scenarios.add(new Scenario("fixedPoint.presentValue", 1, 1,
+				k -> fixedPoint.presentValue(basisPoints[k], terms[k], paymentCents[k])));
+		scenarios.add(new Scenario("fixedPoint.numberOfPayments", 1, 1,
+				k -> fixedPoint.numberOfPayments(loanCents[k], basisPoints[k], paymentCents[k])));
+		scenarios.add(new Scenario("fixedPoint.interestRate", 1, 1,
+				k -> fixedPoint.interestRate(loanCents[k], terms[k], paymentCents[k])));
+
+		// Batch solves, one call prices every sample
+		scenarios.add(new Scenario("batch.payments(grid)", SAMPLES, 1, k -> {
+			batch.payments(loanAmounts, 4.9f, 60, batchOut);
+			return batchOut[k];
+		}));
+		scenarios.add(new Scenario("batch.payments(columns)", SAMPLES, 1, k -> {
+			batch.payments(loanAmounts, aprs, terms, batchOut);
+			return batchOut[k];
+		}));
+		scenarios.add(new Scenario("batch.presentValues(columns)", SAMPLES, 1, k -> {
+			batch.presentValues(aprs, terms, payments, batchOut);
+			return batchOut[k];
+		}));
+
+		// What-if session re-quotes of one loan, changing one value per call
+		WhatIfSession principalSession = new WhatIfSession(25000, 4.9f, 60);
+		scenarios.add(new Scenario("whatIf.payment(principal)", 1, 1, k -> {
+			principalSession.setLoanAmount(loanAmounts[k]);
+			return principalSession.payment();
+		}));
+		WhatIfSession aprSession = new WhatIfSession(25000, 4.9f, 60);
+		scenarios.add(new Scenario("whatIf.solveApr(payment)", 1, 1,
+				k -> aprSession.solveApr(470.64 + (k & 63) * 0.25)));
+		scenarios.add(new Scenario("engine.boundedInterestRate(payment)", 1, 1,
+				k -> engine.boundedInterestRate(25000, 60, 470.64 + (k & 63) * 0.25).getInterestRate()));
+
+		// Target payment queries over a grid of 0% to 30% APR in basis point steps and 12 to 96 month terms
+		float[] gridAprs = new float[3001];
+		for (int k = 0; k < gridAprs.length; k++) {
+			gridAprs[k] = k / 100f;
+		}
+		int[] gridTerms = new int[85];
+		for (int k = 0; k < gridTerms.length; k++) {
+			gridTerms[k] = 12 + k;
+		}
+		PaymentTargetIndex index = new PaymentTargetIndex(gridAprs, gridTerms);
+		scenarios.add(new Scenario("paymentTarget.count", 1, 1,
+				k -> index.count(payments[k], 2000, loanAmounts[k], loanAmounts[k] + 1000)));
+		scenarios.add(new Scenario("paymentTarget.find", 1, 1, k -> index.find(payments[k], 2000, loanAmounts[k],
+				loanAmounts[k] + 1000, (apr, numberOfPayments, principal, price) -> sink = principal)));
+
+		// Rate scenario simulation of the input table, 64 paths per loan per call
+		RateScenarioSimulator simulator = new RateScenarioSimulator(RateScenarioSimulator.Model.VARIABLE_RATE,
+				12, 1f, 30f);
+		scenarios.add(new Scenario("rateSimulator(variable)", SAMPLES * 64, 1,
+				k -> simulator.simulate(loanAmounts, aprs, terms, 64, k).getMeanTotalInterest()));
+
+		// Early payoff with $100 extra a month, and for the batch a $2,000 lump sum in month 12, one call pays off
+		// every sample
+		double[] extraPayments = new double[SAMPLES];
+		int[] lumpMonths = new int[SAMPLES];
+		double[] lumpAmounts = new double[SAMPLES];
+		Arrays.fill(extraPayments, 100);
+		Arrays.fill(lumpMonths, 12);
+		Arrays.fill(lumpAmounts, 2000);
+		int[] payoffPayments = new int[SAMPLES];
+		double[] finalPayments = new double[SAMPLES];
+		PayoffEngine payoff = new PayoffEngine(1, PayoffEngine.DEFAULT_CHUNK_SIZE);
+		scenarios.add(new Scenario("payoff.extraPayment", 1, 1,
+				k -> payoff.payoff(loanAmounts[k], aprs[k], payments[k], 100).getInterestSaved()));
+		scenarios.add(new Scenario("payoff(columns)", SAMPLES, 1, k -> {
+			payoff.payoff(loanAmounts, aprs, payments, extraPayments, lumpMonths, lumpAmounts, payoffPayments,
+					finalPayments, batchOut);
+			return batchOut[k];
+		}));
+
+		// Result lines with all four values, as printed for a saved result
+		scenarios.add(new Scenario("format.decimalFormat", 1, 1, k -> ("APR: " + decimalPercent.format(aprs[k]/100)
+				+ "\tNumber of Months: " + decimalCount.format(terms[k])
+				+ "\tPrincipal: " + decimalPrincipal.format(loanAmounts[k])
+				+ "\tCalculated Monthly Amount: " + decimalMonthlyAmount.format(payments[k])).length()));
+		scenarios.add(new Scenario("format.quoteFormatter", 1, 1, k -> {
+			line.setLength(0);
+			QuoteFormatter.PERCENT.append(line.append("APR: "), aprs[k]/100);
+			QuoteFormatter.COUNT.append(line.append("\tNumber of Months: "), terms[k]);
+			QuoteFormatter.PRINCIPAL.append(line.append("\tPrincipal: "), loanAmounts[k]);
+			QuoteFormatter.MONTHLY_AMOUNT.append(line.append("\tCalculated Monthly Amount: "), payments[k]);
+			return line.length();
+		}));
+
+		// One shared engine and cache serving every core
+		scenarios.add(new Scenario("engine.payment(shared)", 1, cores,
+				k -> engine.payment(loanAmounts[k], aprs[k], terms[k]).getPaymentAmount()));
+		scenarios.add(new Scenario("engine.boundedInterestRate(shared)", 1, cores,
+				k -> engine.boundedInterestRate(loanAmounts[k], terms[k], payments[k]).getInterestRate()));
+		scenarios.add(new Scenario("cache.payment(shared)", 1, cores,
+				k -> cache.payment(loanAmounts[k], aprs[k], terms[k])));
+
+		// Portfolio repricing speed-up curve, one book of loans per call
+		for (int parallelism = 1; parallelism <= cores; parallelism *= 2) {
+			PortfolioRepricer repricer = new PortfolioRepricer(parallelism, PortfolioRepricer.DEFAULT_CHUNK_SIZE);
+			scenarios.add(new Scenario("repricer(parallelism=" + parallelism + ")", BOOK_SIZE, 1, k -> {
+				repricer.reprice(bookPayments, bookAprs, bookTerms, 3.9f, bookBalances, bookNewPayments);
+				return bookNewPayments[k];
+			}));
+		}
+		return scenarios;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Warms up and measures a scenario, then prints the averages of the measured iterations.
+	//-----------------------------------------------------------------------------------------------------------------
+	void measure(Scenario scenario) throws InterruptedException {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			iteration(scenario);
+		}
+		long calls = 0;
+		long nanos = 0;
+		long bytes = 0;
+		for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+			long[] result = iteration(scenario);
+			calls += result[0];
+			nanos += result[1];
+			bytes += result[2];
+		}
+		double quotes = (double) calls * scenario.quotesPerCall;
+		System.out.printf("%-40s %8d %16.0f %12.2f %12.2f%n", scenario.name, scenario.threads,
+				quotes / (nanos / 1e9), (double) nanos * scenario.threads / quotes, bytes / quotes);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Runs one timed iteration on the scenario's threads. Returns the calls made, the elapsed nanoseconds averaged
+	// over the threads, and the bytes allocated.
+	//-----------------------------------------------------------------------------------------------------------------
+	long[] iteration(Scenario scenario) throws InterruptedException {
+		AtomicLong calls = new AtomicLong();
+		AtomicLong nanos = new AtomicLong();
+		AtomicLong bytes = new AtomicLong();
+		CountDownLatch done = new CountDownLatch(scenario.threads);
+
+		for (int t = 0; t < scenario.threads; t++) {
+			Thread worker = new Thread(() -> {
+				long allocatedBefore = allocatedBytes();
+				long start = System.nanoTime();
+				long deadline = start + ITERATION_NANOS;
+				long count = 0;
+				double result = 0;
+				long now = start;
+				int batch = 1;
+				do {
+					// Check the clock once per batch to keep the timing overhead out of the measurement. The batch
+					// doubles while it takes less than CHECK_INTERVAL_NANOS, so a call that is longer than that, such
+					// as repricing a whole book, checks the deadline after every call.
+					for (int k = 0; k < batch; k++) {
+						result += scenario.operation.run((int) (count++ & (SAMPLES - 1)));
+					}
+					long previous = now;
+					now = System.nanoTime();
+					if (batch < MAX_BATCH && now - previous < CHECK_INTERVAL_NANOS) {
+						batch *= 2;
+					}
+				} while (now < deadline);
+				sink = result;
+				calls.addAndGet(count);
+				nanos.addAndGet(now - start);
+				bytes.addAndGet(allocatedBytes() - allocatedBefore);
+				done.countDown();
+			});
+			worker.start();
+		}
+		done.await();
+		return new long[] { calls.get(), nanos.get() / scenario.threads, bytes.get() };
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the bytes allocated so far by the current thread, or 0 when the JVM does not track allocations.
+	//-----------------------------------------------------------------------------------------------------------------
+	static long allocatedBytes() {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Checks the PaymentKernel selected by BatchQuoteEngine against the scalar kernel. Prices random
+ * 					columns of loans with both, reports how many PMT and PV values differ and by how many units in
+ * 					the last place (ulp), fails when a difference exceeds the bound implied by the kernel's
+ * 					getMaxGrowthUlpError(), and compares throughput on a block of rows that fits in cache.
+ *
+ * 					Usage: java --add-modules jdk.incubator.vector -cp bin:bin-bench VectorKernelCheck [rows]
+ *
+ **********************************************************************************************************************
+ **/
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class VectorKernelCheck {
+	static final int DEFAULT_ROWS = 1 << 20;
+	static final int TIMED_ROWS = 1 << 16;
+	static final int WARMUP_REPEATS = 2000;
+	static final int TIMED_REPEATS = 500;
+	static final int ROUNDING_ULPS = 4;			// operations after the power in the PMT and PV formulas
+
+	public static void main(String[] args) {
+		int rows = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROWS;
+		PaymentKernel selected = new BatchQuoteEngine().getKernel();
+		PaymentKernel scalar = ScalarPaymentKernel.INSTANCE;
+		System.out.println(" Selected kernel: " + selected + ", (1 + i)^n within " + selected.getMaxGrowthUlpError()
+				+ " ulp of Math.pow");
+
+		// 10% 0% promotions, APRs between 0.01% and 30%, terms between 1 and 120 months
+		Random random = new Random(7);
+		double[] loanAmounts = new double[rows];
+		float[] aprs = new float[rows];
+		int[] terms = new int[rows];
+		double[] payments = new double[rows];
+		for (int k = 0; k < rows; k++) {
+			loanAmounts[k] = Math.round((1000 + random.nextDouble() * 99000) * 100) / 100.0;
+			aprs[k] = random.nextInt(10) == 0 ? 0f : (1 + random.nextInt(3000)) / 100f;
+			terms[k] = 1 + random.nextInt(120);
+			payments[k] = Math.round((50 + random.nextDouble() * 2000) * 100) / 100.0;
+		}
+
+		double[] growths = new double[rows];
+		for (int k = 0; k < rows; k++) {
+			growths[k] = Math.pow((1 + QuoteEngine.monthlyRate(aprs[k])), terms[k]);
+		}
+		int bound = selected.getMaxGrowthUlpError();
+		double[] expected = new double[rows];
+		double[] actual = new double[rows];
+		scalar.payments(loanAmounts, aprs, terms, expected);
+		selected.payments(loanAmounts, aprs, terms, actual);
+		boolean passed = compare("PMT", expected, actual, growths, bound);
+		scalar.presentValues(aprs, terms, payments, expected);
+		selected.presentValues(aprs, terms, payments, actual);
+		passed &= compare("PV", expected, actual, growths, bound);
+
+		double[] timedLoanAmounts = Arrays.copyOf(loanAmounts, TIMED_ROWS);
+		float[] timedAprs = Arrays.copyOf(aprs, TIMED_ROWS);
+		int[] timedTerms = Arrays.copyOf(terms, TIMED_ROWS);
+		double[] out = new double[TIMED_ROWS];
+		System.out.printf(" %-24s %14s%n", "Kernel", "Quotes/s");
+		System.out.printf(" %-24s %14.0f%n", "scalar.payments",
+				throughput(scalar, timedLoanAmounts, timedAprs, timedTerms, out));
+		System.out.printf(" %-24s %14.0f%n", "selected.payments",
+				throughput(selected, timedLoanAmounts, timedAprs, timedTerms, out));
+
+		if (!passed) {
+			System.out.println(" FAILED: a difference exceeds the stated bound.");
+			System.exit(1);
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Prints how many values differ and the largest difference in ulps. Returns false when a value is further from
+	// the expected value than growthUlps ulps of (1 + i)^n can explain, allowing twice that plus ROUNDING_ULPS ulps of
+	// the result for the roundings of the remaining operations, which may round the other way.
+	//-----------------------------------------------------------------------------------------------------------------
+	static boolean compare(String name, double[] expected, double[] actual, double[] growths, int growthUlps) {
+		int different = 0;
+		long maxUlps = 0;
+		boolean passed = true;
+		for (int k = 0; k < expected.length; k++) {
+			if (Double.compare(expected[k], actual[k]) == 0) {
+				continue;
+			}
+			different++;
+			maxUlps = Math.max(maxUlps, ulps(expected[k], actual[k]));
+			double growth = growths[k];
+			double allowed = 2 * growthUlps * Math.ulp(growth) / (growth * Math.abs(growth - 1));
+			if (!(Math.abs(actual[k] - expected[k])
+					<= allowed * Math.abs(expected[k]) + ROUNDING_ULPS * Math.ulp(expected[k]))) {
+				passed = false;
+			}
+		}
+		System.out.println(" " + name + ": " + different + " of " + expected.length + " values differ, largest by "
+				+ maxUlps + " ulp");
+		return passed;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the distance in ulps between two finite values, or Long.MAX_VALUE when either is not finite.
+	//-----------------------------------------------------------------------------------------------------------------
+	static long ulps(double expected, double actual) {
+		if (Double.isNaN(expected) || Double.isInfinite(expected) || Double.isNaN(actual) || Double.isInfinite(actual)) {
+			return Long.MAX_VALUE;
+		}
+		return Math.abs(Double.doubleToLongBits(expected) - Double.doubleToLongBits(actual));
+	}
+
+	static double throughput(PaymentKernel kernel, double[] loanAmounts, float[] aprs, int[] terms, double[] out) {
+		for (int i = 0; i < WARMUP_REPEATS; i++) {
+			kernel.payments(loanAmounts, aprs, terms, out);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < TIMED_REPEATS; i++) {
+			kernel.payments(loanAmounts, aprs, terms, out);
+		}
+		return (double) TIMED_REPEATS * loanAmounts.length / ((System.nanoTime() - start) / 1e9);
+	}
+}
@@ -0,0 +1,39 @@
+#!/bin/sh
+# *********************************************************************************************************************
+#
+# Name: 			Riley Martinez
+# Course Number:	SEIS602 - 01
+# Description: 	Fast launch mode for short-lived CalculatorMenu runs, such as scripts that call a one-shot argument
+# 				thousands of times an hour. "./fastlaunch.sh --build" compiles src into bin/CalculatorMenu.jar and
+# 				records an application class-data-sharing (CDS) archive, bin/CalculatorMenu.jsa, from a training
+# 				run of every solve. Any other arguments are passed to CalculatorMenu, started with the archive (the
+# 				build runs first when the jar or archive is missing):
+#
+# 					./fastlaunch.sh --pmt 25000 4.9 60
+#
+# 				The archive holds the parsed and verified classes the training run loaded, so they are mapped
+# 				instead of loaded from the jar. The JVM options trade peak throughput for startup and footprint:
+# 				C1 only, the serial collector and a small heap. Rebuild after changing src or the JDK. Recording
+# 				the archive at exit needs Java 13 or later.
+#
+# *********************************************************************************************************************
+
+cd "$(dirname "$0")" || exit 1
+JAR=bin/CalculatorMenu.jar
+ARCHIVE=bin/CalculatorMenu.jsa
+JVM_OPTIONS="-XX:TieredStopAtLevel=1 -XX:+UseSerialGC -Xmx64m -Xss512k -XX:CICompilerCount=1"
+
+if [ "$1" = "--build" ] || [ ! -f "$JAR" ] || [ ! -f "$ARCHIVE" ]; then
+	rm -rf bin/classes "$ARCHIVE"
+	# -XDstringConcat=inline compiles string concatenation to StringBuilder calls, which need no bootstrap at startup
+	javac --release 11 -XDstringConcat=inline -d bin/classes src/*.java || exit 1
+	jar --create --file "$JAR" --main-class CalculatorMenu -C bin/classes . || exit 1
+	# CDS archives only classes loaded from jar files, so the training run uses the jar
+	printf '1\n4.9\n60\n25000\nn\n2\n470.64\n60\n25000\nn\n3\n470.64\n4.9\n25000\nn\n4\n470.64\n4.9\n60\nn\n0\n' \
+			| java -XX:ArchiveClassesAtExit="$ARCHIVE" $JVM_OPTIONS -cp "$JAR" CalculatorMenu > /dev/null || exit 1
+	if [ "$1" = "--build" ]; then
+		exit 0
+	fi
+fi
+
+exec java -XX:SharedArchiveFile="$ARCHIVE" $JVM_OPTIONS -cp "$JAR" CalculatorMenu "$@"
@@ -0,0 +1,61 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Generates the month-by-month amortization schedule of a loan from the QuoteEngine PMT solve. Rows
+ * 					are streamed to a RowHandler as primitive values, so a schedule of any length is produced without
+ * 					creating an object per row, and a single AmortizationSchedule can be shared by many threads.
+ *
+ * 					Amounts are tracked in whole cents. The payment is the PMT rounded to the nearest cent, each
+ * 					month's interest is the balance times the monthly rate rounded to the nearest cent, and the last
+ * 					payment is adjusted to pay off the remaining balance exactly. For 0% apr loans the pennies lost
+ * 					due to rounding are paid with the first payment, as in FinanceCalculator.
+ *
+ **********************************************************************************************************************
+ **/
+
+public final class AmortizationSchedule {
+	private final QuoteEngine engine = new QuoteEngine();
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Receives the rows of a schedule in payment order. Amounts are in dollars rounded to the cent.
+	//-----------------------------------------------------------------------------------------------------------------
+	public interface RowHandler {
+		void row(int paymentNumber, double payment, double interest, double principal, double balance);
+	}
+
+	public AmortizationSchedule() {} // default constructor
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Streams every row of the schedule to the handler and returns the total interest paid.
+	//-----------------------------------------------------------------------------------------------------------------
+	public double generate(double loanAmount, float apr, int numberOfPayments, RowHandler handler) {
+		QuoteResult result = engine.payment(loanAmount, apr, numberOfPayments);
+		double interestRate = result.getInterestRate();
+		long balance = Math.round(loanAmount * 100);
+		long firstPayment = Math.round(result.getPaymentAmount() * 100);
+		long regularPayment = Math.round(result.getRegularPayment() * 100);
+		long totalInterest = 0;
+
+		for (int paymentNumber = 1; paymentNumber <= numberOfPayments; paymentNumber++) {
+			long interest = Math.round(balance * interestRate);
+			long payment = (paymentNumber == 1) ? firstPayment : regularPayment;
+			long principal = payment - interest;
+
+			// The last payment, or any payment that would overpay, pays off the remaining balance
+			if (paymentNumber == numberOfPayments || principal > balance) {
+				principal = balance;
+				payment = principal + interest;
+			}
+			balance -= principal;
+			totalInterest += interest;
+			handler.row(paymentNumber, payment / 100.0, interest / 100.0, principal / 100.0, balance / 100.0);
+
+			if (balance == 0) {
+				break;
+			}
+		}
+		return totalInterest / 100.0;
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Optional cache in front of the QuoteEngine PMT and PV formulas. Dealer rate sheets only use a few
+ * 					hundred distinct rates and a handful of terms, so (1 + i)^n is computed once per (rate, term) and
+ * 					each later quote is a table lookup plus the remaining arithmetic of the formula.
+ *
+ * 					Entries are keyed by the exact APR in basis points and the number of payments, packed into a long.
+ * 					APRs that are not a whole number of basis points bypass the cache. Results are the same,
+ * 					bit-for-bit, as QuoteEngine.
+ *
+ * 					The table is open-addressed and set-associative: a key hashes to one set of up to WAYS slots, and
+ * 					holds maximumSize slots in all. A lookup reads the slots of its set without locking or boxing the
+ * 					key, and a hit at most sets the entry's referenced bit, so any number of threads read the cache
+ * 					in parallel. A miss computes the factor and writes it into its set with a compare-and-set, taking
+ * 					an empty slot or evicting with the clock algorithm: the set's hand passes over entries that were
+ * 					referenced since it last passed (clearing the bit) and evicts the first that was not. Eviction is
+ * 					approximately least recently used within the set rather than exact LRU across the whole cache.
+ * 					Since a key can only live in its own set, some sets fill before others, so size the cache at
+ * 					about twice the number of (rate, term) pairs it should hold.
+ *
+ **********************************************************************************************************************
+ **/
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class AnnuityFactorCache {
+	static final int WAYS = 8;						// slots in one set, scanned by every lookup of the set
+
+	// Spreads the packed keys over the sets (the 64-bit golden ratio)
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	private final QuoteEngine engine = new QuoteEngine();
+	private final int maximumSize;
+	private final int sets;
+	private final AtomicReferenceArray<Factor> slots;
+	private final int[] hands;						// next slot the clock looks at in each set, racy by design
+
+	// Lookup counters
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder bypasses = new LongAdder();
+
+	// Precomputed terms of the formulas for one (rate, term) pair, and the key they were computed for
+	private static final class Factor {
+		final long key;
+		final double interestRate;		// monthly interest rate, widened from float
+		final double growth;			// (1 + i)^n
+		final double discount;			// 1 - (1 / (1 + i)^n)
+		boolean referenced;				// read since the clock last passed; a hint, so not volatile
+
+		Factor(long key, float interestRate, int numberOfPayments) {
+			this.key = key;
+			this.interestRate = interestRate;
+			this.growth = Math.pow((1 + interestRate), numberOfPayments);
+			this.discount = 1 - (1 / this.growth);
+		}
+	}
+
+	public AnnuityFactorCache(int maximumSize) {
+		if (maximumSize <= 0) {
+			throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+		}
+		this.maximumSize = maximumSize;
+		this.sets = (maximumSize + WAYS - 1) / WAYS;
+		this.slots = new AtomicReferenceArray<Factor>(maximumSize);
+		this.hands = new int[sets];
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates monthly payment amount (PMT)
+	//-----------------------------------------------------------------------------------------------------------------
+	public double payment(double loanAmount, float apr, int numberOfPayments) {
+		if (QuoteEngine.monthlyRate(apr) == 0.0) {
+			return QuoteEngine.zeroRatePayment(loanAmount, numberOfPayments);
+		}
+		Factor factor = lookup(apr, numberOfPayments);
+		if (factor == null) {
+			return engine.payment(loanAmount, apr, numberOfPayments).getPaymentAmount();
+		}
+		return (loanAmount * factor.interestRate * factor.growth) / (factor.growth - 1);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates loan amount (PV)
+	//-----------------------------------------------------------------------------------------------------------------
+	public double presentValue(float apr, int numberOfPayments, double paymentAmount) {
+		if (QuoteEngine.monthlyRate(apr) == 0.0) {
+			return numberOfPayments * paymentAmount;
+		}
+		Factor factor = lookup(apr, numberOfPayments);
+		if (factor == null) {
+			return engine.presentValue(apr, numberOfPayments, paymentAmount).getLoanAmount();
+		}
+		return (paymentAmount / factor.interestRate) * factor.discount;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the cached factor for the apr and number of payments, computing it on a miss. Returns null when the apr
+	// is not a whole number of basis points.
+	//-----------------------------------------------------------------------------------------------------------------
+	private Factor lookup(float apr, int numberOfPayments) {
+		int basisPoints = Math.round(apr * 100);
+		if (basisPoints / 100f != apr) {
+			bypasses.increment();
+			if (QuoteMetrics.ENABLED) {
+				QuoteMetrics.recordCacheBypass();
+			}
+			return null;
+		}
+		long key = ((long) basisPoints << 32) | (numberOfPayments & 0xFFFFFFFFL);
+		int set = (int) (((key * HASH_MULTIPLIER) >>> 32) * sets >>> 32);
+		int first = set * WAYS;
+		int end = Math.min(first + WAYS, maximumSize);
+
+		for (int slot = first; slot < end; slot++) {
+			Factor factor = slots.get(slot);
+			if (factor != null && factor.key == key) {
+				// Only write the bit when it changes, so hits on a hot entry do not keep dirtying its cache line
+				if (!factor.referenced) {
+					factor.referenced = true;
+				}
+				hits.increment();
+				if (QuoteMetrics.ENABLED) {
+					QuoteMetrics.recordCacheHit();
+				}
+				return factor;
+			}
+		}
+		misses.increment();
+		if (QuoteMetrics.ENABLED) {
+			QuoteMetrics.recordCacheMiss();
+		}
+		Factor factor = new Factor(key, QuoteEngine.monthlyRate(apr), numberOfPayments);
+		insert(set, first, end, factor);
+		return factor;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Writes a factor into its set, in an empty slot or in place of the entry the clock evicts. When another thread
+	// changes the chosen slot first, the factor is not cached; it is still returned to the caller.
+	//-----------------------------------------------------------------------------------------------------------------
+	private void insert(int set, int first, int end, Factor factor) {
+		int ways = end - first;
+		int hand = hands[set];
+		Factor victim = null;
+		int slot = first;
+
+		// Two passes of the hand: the first may only clear referenced bits
+		for (int step = 0; step < 2 * ways; step++) {
+			slot = first + (hand + step) % ways;
+			victim = slots.get(slot);
+			if (victim == null || !victim.referenced) {
+				hands[set] = (hand + step + 1) % ways;
+				break;
+			}
+			victim.referenced = false;
+		}
+		slots.compareAndSet(slot, victim, factor);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Removes every cached factor. The counters are not reset.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void clear() {
+		for (int slot = 0; slot < maximumSize; slot++) {
+			slots.set(slot, null);
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Accessors for the cache size and lookup counters
+	//-----------------------------------------------------------------------------------------------------------------
+	public int size() {
+		int size = 0;
+		for (int slot = 0; slot < maximumSize; slot++) {
+			if (slots.get(slot) != null) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getBypasses() {
+		return bypasses.sum();
+	}
+
+	public double getHitRate() {
+		long lookups = getHits() + getMisses();
+		return lookups == 0 ? 0 : (double) getHits() / lookups;
+	}
+
+	public String toString() {
+		return "AnnuityFactorCache [size=" + size() + ", maximumSize=" + maximumSize + ", hits=" + getHits()
+				+ ", misses=" + getMisses() + ", bypasses=" + getBypasses() + "]";
+	}
+}
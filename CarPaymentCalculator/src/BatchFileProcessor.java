@@ -0,0 +1,349 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Non-interactive batch mode. Reads a CSV file of calculations and writes the same rows with the
+ * 					solved value filled in. Each row has five columns:
+ *
+ * 						solve,principal,apr,months,payment
+ *
+ * 					where solve is the Main Menu option of the value to calculate (1 Monthly Amount, 2 APR,
+ * 					3 Number of Payments, 4 Principal) and the column being solved may be left empty. The APR is
+ * 					annual and in percent, like the menu input. A first line that cannot be read as a row is treated
+ * 					as a header and copied to the output. Rows that cannot be read, and Number of Payments rows whose
+ * 					payment does not cover the first month's interest (so the loan is never paid off), are skipped and
+ * 					counted.
+ *
+ * 					The input is memory-mapped a window at a time and numbers are parsed straight from the mapped
+ * 					bytes, and the output is written through a single reusable buffer, so memory use is the same for
+ * 					any file size.
+ *
+ **********************************************************************************************************************
+ **/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class BatchFileProcessor {
+	static final int WINDOW_BYTES = 64 * 1024 * 1024;		// size of each mapped window of the input file
+	static final int OUTPUT_BUFFER_BYTES = 1024 * 1024;
+	static final int MAX_LINE_BYTES = 1024;
+
+	// Powers of ten that are exact doubles, used to scale parsed digits
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	private final QuoteEngine engine = new QuoteEngine();
+	private final ByteBuffer output = ByteBuffer.allocateDirect(OUTPUT_BUFFER_BYTES);
+	private final double[] fields = new double[5];
+	private FileChannel outputChannel;
+	private long rows;
+	private long skippedRows;
+
+	public BatchFileProcessor() {} // default constructor
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Runs the batch mode: java CalculatorMenu --batch input.csv output.csv
+	//-----------------------------------------------------------------------------------------------------------------
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.out.println(" Usage: --batch <input.csv> <output.csv>");
+			return;
+		}
+		BatchFileProcessor processor = new BatchFileProcessor();
+		processor.process(Paths.get(args[0]), Paths.get(args[1]));
+		System.out.println(" Processed " + processor.getRows() + " rows, skipped " + processor.getSkippedRows()
+				+ " rows that could not be read or solved.");
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates every row of the input file and writes the results to the output file.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void process(Path inputFile, Path outputFile) throws IOException {
+		try (FileChannel input = FileChannel.open(inputFile, StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(outputFile, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+			outputChannel = out;
+			output.clear();
+			rows = 0;
+			skippedRows = 0;
+			long size = input.size();
+			long position = 0;
+			boolean firstLine = true;
+
+			while (position < size) {
+				long length = Math.min(WINDOW_BYTES, size - position);
+				MappedByteBuffer window = input.map(FileChannel.MapMode.READ_ONLY, position, length);
+				boolean lastWindow = position + length == size;
+				int start = 0;
+				int limit = (int) length;
+
+				for (int k = 0; k < limit; k++) {
+					if (window.get(k) == '\n') {
+						processLine(window, start, k, firstLine);
+						firstLine = false;
+						start = k + 1;
+					}
+				}
+				if (lastWindow && start < limit) {
+					processLine(window, start, limit, firstLine);
+					start = limit;
+				}
+				if (start == 0 && !lastWindow) {
+					throw new IOException("Line longer than " + WINDOW_BYTES + " bytes at offset " + position);
+				}
+				// The next window starts at the first byte of the unfinished line
+				position += start;
+			}
+			flush();
+		}
+		finally {
+			outputChannel = null;
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Parses, calculates and writes one line. The line runs from start up to, not including, end.
+	//-----------------------------------------------------------------------------------------------------------------
+	private void processLine(ByteBuffer buffer, int start, int end, boolean firstLine) throws IOException {
+		if (end > start && buffer.get(end - 1) == '\r') {
+			end--;
+		}
+		if (end == start) {
+			return;
+		}
+		boolean parsed = parseFields(buffer, start, end);
+		if (firstLine && !parsed) {
+			if (output.remaining() < end - start + 1) {
+				flush();
+			}
+			for (int k = start; k < end && output.hasRemaining(); k++) {
+				put(buffer.get(k));
+			}
+			put((byte) '\n');
+			return;
+		}
+
+		rows++;
+		if (!parsed) {
+			skippedRows++;
+			return;
+		}
+		double principal = fields[1];
+		float apr = (float) fields[2];
+		int months = (int) fields[3];
+		double payment = fields[4];
+
+		switch ((int) fields[0]) {
+		case 1:
+			payment = engine.payment(principal, apr, months).getPaymentAmount();
+			break;
+		case 2:
+			apr = (float) (engine.boundedInterestRate(principal, months, payment).getInterestRate() * 1200);
+			break;
+		case 3:
+			if (payment <= principal * QuoteEngine.monthlyRate(apr)) {
+				skippedRows++;
+				return;
+			}
+			months = engine.numberOfPayments(principal, apr, payment).getNumberOfPayments();
+			break;
+		case 4:
+			principal = engine.presentValue(apr, months, payment).getLoanAmount();
+			break;
+		default:
+			skippedRows++;
+			return;
+		}
+
+		if (output.remaining() < MAX_LINE_BYTES) {
+			flush();
+		}
+		putFixed((long) fields[0], 0);
+		put((byte) ',');
+		putFixed(principal, 2);
+		put((byte) ',');
+		putFixed(apr, 4);
+		put((byte) ',');
+		putFixed(months, 0);
+		put((byte) ',');
+		putFixed(payment, 2);
+		put((byte) '\n');
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Reads the five comma separated numbers of a line into fields. An empty column is read as 0. Returns false when
+	// the line does not have five columns or a column is not a number.
+	//-----------------------------------------------------------------------------------------------------------------
+	private boolean parseFields(ByteBuffer buffer, int start, int end) {
+		int column = 0;
+		int fieldStart = start;
+		for (int k = start; k <= end; k++) {
+			if (k == end || buffer.get(k) == ',') {
+				if (column == fields.length) {
+					return false;
+				}
+				double value = parseNumber(buffer, fieldStart, k);
+				if (Double.isNaN(value)) {
+					return false;
+				}
+				fields[column++] = value;
+				fieldStart = k + 1;
+			}
+		}
+		return column == fields.length;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Parses a decimal number such as "-1741.11" from the bytes between start and end, ignoring spaces. Returns 0 for
+	// an empty field and NaN when the field is not a number: only one leading sign, decimal digits and one decimal
+	// point are accepted, so "--5", "1e5", "Infinity" and "NaN" are not numbers. Numbers with up to 15 significant
+	// digits are exact.
+	//-----------------------------------------------------------------------------------------------------------------
+	static double parseNumber(ByteBuffer buffer, int start, int end) {
+		while (start < end && buffer.get(start) == ' ') {
+			start++;
+		}
+		while (end > start && buffer.get(end - 1) == ' ') {
+			end--;
+		}
+		if (start == end) {
+			return 0;
+		}
+		boolean negative = buffer.get(start) == '-';
+		if (negative || buffer.get(start) == '+') {
+			start++;
+		}
+
+		long digits = 0;
+		int significantDigits = 0;
+		int fractionDigits = 0;
+		boolean fraction = false;
+		boolean anyDigit = false;
+		for (int k = start; k < end; k++) {
+			byte c = buffer.get(k);
+			if (c >= '0' && c <= '9') {
+				anyDigit = true;
+				if (significantDigits < 18) {
+					digits = digits * 10 + (c - '0');
+					if (digits != 0) {
+						significantDigits++;
+					}
+					if (fraction) {
+						fractionDigits++;
+					}
+				}
+				else if (!fraction) {
+					return slowParse(buffer, start, end, negative);
+				}
+			}
+			else if (c == '.' && !fraction) {
+				fraction = true;
+			}
+			else {
+				return Double.NaN;
+			}
+		}
+		if (!anyDigit) {
+			return Double.NaN;
+		}
+		if (significantDigits > 15 || fractionDigits >= POWERS_OF_TEN.length) {
+			return slowParse(buffer, start, end, negative);
+		}
+		// Both values are exact doubles, so the division is correctly rounded
+		double value = digits / POWERS_OF_TEN[fractionDigits];
+		return negative ? -value : value;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Falls back to Double.parseDouble for numbers with too many digits for the fast path to read exactly. The bytes
+	// after the sign must be decimal digits with at most one decimal point, and a value too large for a double is not
+	// a number.
+	//-----------------------------------------------------------------------------------------------------------------
+	private static double slowParse(ByteBuffer buffer, int start, int end, boolean negative) {
+		byte[] bytes = new byte[end - start];
+		boolean point = false;
+		for (int k = 0; k < bytes.length; k++) {
+			bytes[k] = buffer.get(start + k);
+			if (bytes[k] == '.' && !point) {
+				point = true;
+			}
+			else if (bytes[k] < '0' || bytes[k] > '9') {
+				return Double.NaN;
+			}
+		}
+		double value = Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+		if (Double.isInfinite(value)) {
+			return Double.NaN;
+		}
+		return negative ? -value : value;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Writes a number rounded half up to the given number of decimal places.
+	//-----------------------------------------------------------------------------------------------------------------
+	private void putFixed(double value, int decimals) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			put((byte) 'N');
+			put((byte) 'a');
+			put((byte) 'N');
+			return;
+		}
+		if (value < 0) {
+			put((byte) '-');
+			value = -value;
+		}
+		long scale = (long) POWERS_OF_TEN[decimals];
+		long scaled = (long) Math.floor(value * scale + 0.5);
+		putDigits(scaled / scale);
+		if (decimals > 0) {
+			put((byte) '.');
+			long fraction = scaled % scale;
+			for (long divisor = scale / 10; divisor > 0; divisor /= 10) {
+				put((byte) ('0' + (fraction / divisor) % 10));
+			}
+		}
+	}
+
+	private void putDigits(long value) {
+		long divisor = 1;
+		while (divisor <= value / 10) {
+			divisor *= 10;
+		}
+		for (; divisor > 0; divisor /= 10) {
+			put((byte) ('0' + (value / divisor) % 10));
+		}
+	}
+
+	private void put(byte b) {
+		output.put(b);
+	}
+
+	private void flush() throws IOException {
+		output.flip();
+		while (output.hasRemaining()) {
+			outputChannel.write(output);
+		}
+		output.clear();
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Accessors for the row counts of the last file processed
+	//-----------------------------------------------------------------------------------------------------------------
+	public long getRows() {
+		return rows;
+	}
+
+	public long getSkippedRows() {
+		return skippedRows;
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Columnar version of the QuoteEngine PMT and PV formulas for pricing whole inventories at once.
+ * 					Inputs are parallel primitive arrays (or DoubleBuffers) and results are written to a caller
+ * 					supplied output array, so no objects are created per quote.
+ *
+ * 					(1 + i)^n is computed once per call for the single rate and term overloads, and the inner loops
+ * 					are straight-line arithmetic over arrays that the JIT can auto-vectorize. The parallel column
+ * 					overloads run on a PaymentKernel: ScalarPaymentKernel computes (1 + i)^n once per run of equal
+ * 					(rate, term) rows, and VectorPaymentKernel computes it in SIMD lanes when the JVM is started with
+ * 					--add-modules jdk.incubator.vector (set -Dquote.scalarKernel=true to keep the scalar kernel).
+ * 					Every value matches the corresponding QuoteEngine result bit-for-bit, including the 0% apr penny
+ * 					loss adjustment of the first payment, except on the rare rows where Math.pow is not correctly
+ * 					rounded and the vector kernel's power is (see PaymentKernel.getMaxGrowthUlpError).
+ *
+ * 					Throughput target, per core: 500 million quotes/sec for the single rate and term overloads, and
+ * 					20 million quotes/sec for the parallel column overloads even when rows do not share a rate and
+ * 					term (the Math.pow per run of rows dominates there).
+ *
+ **********************************************************************************************************************
+ **/
+
+import java.nio.DoubleBuffer;
+
+public final class BatchQuoteEngine {
+	static final String VECTOR_MODULE = "jdk.incubator.vector";
+	static final String VECTOR_KERNEL = "VectorPaymentKernel";
+
+	// Kernel for the parallel column overloads, chosen once for the JVM
+	private static final PaymentKernel DEFAULT_KERNEL = selectKernel();
+
+	private final PaymentKernel kernel;
+
+	public BatchQuoteEngine() {
+		this(DEFAULT_KERNEL);
+	}
+
+	BatchQuoteEngine(PaymentKernel kernel) {
+		this.kernel = kernel;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the monthly payment amount (PMT) of every principal for a single apr and number of payments.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void payments(double[] loanAmounts, float apr, int numberOfPayments, double[] out) {
+		checkLength(loanAmounts.length, out.length);
+		float interestRate = QuoteEngine.monthlyRate(apr);
+
+		if (interestRate == 0.0) {
+			for (int k = 0; k < loanAmounts.length; k++) {
+				out[k] = QuoteEngine.zeroRatePayment(loanAmounts[k], numberOfPayments);
+			}
+			return;
+		}
+		double growth = Math.pow((1 + interestRate), numberOfPayments);
+		double rate = interestRate;
+		double denominator = growth - 1;
+		for (int k = 0; k < loanAmounts.length; k++) {
+			out[k] = (loanAmounts[k] * rate * growth) / denominator;
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the monthly payment amount (PMT) for parallel columns of principal, apr and number of payments.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void payments(double[] loanAmounts, float[] aprs, int[] numberOfPayments, double[] out) {
+		checkLength(loanAmounts.length, aprs.length);
+		checkLength(loanAmounts.length, numberOfPayments.length);
+		checkLength(loanAmounts.length, out.length);
+		kernel.payments(loanAmounts, aprs, numberOfPayments, out);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the monthly payment amount (PMT) of every remaining principal in the buffer, writing the results to
+	// the output buffer. Both buffers are advanced past the values read and written.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void payments(DoubleBuffer loanAmounts, float apr, int numberOfPayments, DoubleBuffer out) {
+		int count = loanAmounts.remaining();
+		checkLength(count, out.remaining());
+		float interestRate = QuoteEngine.monthlyRate(apr);
+
+		if (interestRate == 0.0) {
+			for (int k = 0; k < count; k++) {
+				out.put(QuoteEngine.zeroRatePayment(loanAmounts.get(), numberOfPayments));
+			}
+			return;
+		}
+		double growth = Math.pow((1 + interestRate), numberOfPayments);
+		double rate = interestRate;
+		double denominator = growth - 1;
+		for (int k = 0; k < count; k++) {
+			out.put((loanAmounts.get() * rate * growth) / denominator);
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the loan amount (PV) of every monthly payment for a single apr and number of payments.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void presentValues(float apr, int numberOfPayments, double[] paymentAmounts, double[] out) {
+		checkLength(paymentAmounts.length, out.length);
+		float interestRate = QuoteEngine.monthlyRate(apr);
+
+		if (interestRate == 0.0) {
+			for (int k = 0; k < paymentAmounts.length; k++) {
+				out[k] = numberOfPayments * paymentAmounts[k];
+			}
+			return;
+		}
+		double discount = 1 - (1 / Math.pow((1 + interestRate), numberOfPayments));
+		for (int k = 0; k < paymentAmounts.length; k++) {
+			out[k] = (paymentAmounts[k] / interestRate) * discount;
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the loan amount (PV) for parallel columns of apr, number of payments and monthly payment.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void presentValues(float[] aprs, int[] numberOfPayments, double[] paymentAmounts, double[] out) {
+		checkLength(paymentAmounts.length, aprs.length);
+		checkLength(paymentAmounts.length, numberOfPayments.length);
+		checkLength(paymentAmounts.length, out.length);
+		kernel.presentValues(aprs, numberOfPayments, paymentAmounts, out);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the VectorPaymentKernel when the jdk.incubator.vector module is in the boot layer (the JVM was started
+	// with --add-modules jdk.incubator.vector) and the kernel class is on the class path, or the scalar kernel.
+	//-----------------------------------------------------------------------------------------------------------------
+	static PaymentKernel selectKernel() {
+		if (!Boolean.getBoolean("quote.scalarKernel")
+				&& ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+			try {
+				return (PaymentKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+			}
+			catch (ReflectiveOperationException | LinkageError e) {
+				// Kernel not compiled or not supported by this JVM, use the scalar kernel
+			}
+		}
+		return ScalarPaymentKernel.INSTANCE;
+	}
+
+	public PaymentKernel getKernel() {
+		return kernel;
+	}
+
+	private static void checkLength(int expected, int actual) {
+		if (expected != actual) {
+			throw new IllegalArgumentException("Column lengths differ: " + expected + " != " + actual);
+		}
+	}
+}
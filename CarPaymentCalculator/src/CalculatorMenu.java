@@ -6,12 +6,18 @@
  * Description: 	Front-end console UI class that integrates with the FinanceCalculator class via a (has-a)
  * 					composition relationship. Contains the main method which serves as the starting point for the
  * 					Finance Calculator program.
+ *
+ * 					Scripts that need a single value can skip the menu with a one-shot argument, for example
+ * 					"--pmt 25000 4.9 60", which prints the result line and exits. Nothing is created before it is
+ * 					needed: the Scanner is created on the first prompt, and the result lines are built with
+ * 					QuoteFormatter.append, so a one-shot run loads only the classes of its solve. fastlaunch.sh
+ * 					builds a class-data-sharing archive of those classes for the shortest startup.
  * 				
  **********************************************************************************************************************
  **/
 
-import java.text.DecimalFormat;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Scanner;
 
 public class CalculatorMenu {
@@ -21,28 +27,122 @@ public class CalculatorMenu {
 	private int numberOfPayments = 0;
 	private double monthlyAmount = 0;
 	
+	// One Scanner for every prompt, created on first use, so lines piped to the menu are not lost in the buffer of
+	// a discarded Scanner
+	private Scanner in;
+	
 	// Creates a FinanceCalculator object to invoke calculate methods
 	private FinanceCalculator calculator = new FinanceCalculator(); 
 	
-	// Creates format objects for the displayed principal, apr, numberOfPayments, and monthlyAmount values.
-	DecimalFormat formatPrincipal = new DecimalFormat("$###,###0.00");
-	DecimalFormat formatAPR = new DecimalFormat("0.0000%");
-	DecimalFormat formatNumberOfPayments = new DecimalFormat("###");
-	DecimalFormat formatMonthlyAmount = new DecimalFormat("$###,###.00");
+	// Format objects for the displayed principal, apr, numberOfPayments, and monthlyAmount values.
+	QuoteFormatter formatPrincipal = QuoteFormatter.PRINCIPAL;
+	QuoteFormatter formatAPR = QuoteFormatter.PERCENT;
+	QuoteFormatter formatNumberOfPayments = QuoteFormatter.COUNT;
+	QuoteFormatter formatMonthlyAmount = QuoteFormatter.MONTHLY_AMOUNT;
+	
+	// Reused to build each saved result line
+	private final StringBuilder savedResultLine = new StringBuilder(256);
 	
-	// Stores any results calculated during a session.
-	ArrayList<String> savedResults = new ArrayList<String>();
+	// Stores any results calculated during a session. Results are formatted only when they are printed.
+	SavedResultsStore savedResults = new SavedResultsStore(SAVED_RESULTS_BUFFER, MAX_SAVED_RESULTS);
+	static final int SAVED_RESULTS_BUFFER = 4096;
+	static final long MAX_SAVED_RESULTS = 10_000_000L;
 	
 	//-----------------------------------------------------------------------------------------------------------------
 	// Main method that runs the calculator menu program.
+	// Run with "--serve [port]" to start the headless quote server instead, with
+	// "--batch <input.csv> <output.csv>" to calculate a file of rows without the menu, or with one of the
+	// ONE_SHOT_USAGE arguments to calculate a single value.
 	//-----------------------------------------------------------------------------------------------------------------
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
+		
+		if (args.length > 0 && args[0].equals("--serve")) {
+			QuoteServer.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && args[0].equals("--batch")) {
+			BatchFileProcessor.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		
+		if (args.length > 0 && (args[0].equals("--pmt") || args[0].equals("--apr") || args[0].equals("--term")
+				|| args[0].equals("--pv"))) {
+			new CalculatorMenu().runOneShot(args);
+			return;
+		}
 		
 		CalculatorMenu menu = new CalculatorMenu();
 		menu.runMenu();
 		
 	}
 	
+	static final String ONE_SHOT_USAGE = " Usage: --pmt <principal> <apr> <months> | --apr <principal> <months> "
+			+ "<monthly amount> | --term <principal> <apr> <monthly amount> | --pv <apr> <months> <monthly amount>";
+	
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the value named by the first argument from the other three, and prints the same result line as the
+	// menu. Inputs the menu would reject, and values that are not finite, print the usage instead. The APR is solved
+	// with the bounded solve, so a scripted call always terminates.
+	//-----------------------------------------------------------------------------------------------------------------
+	void runOneShot(String[] args) {
+		try {
+			if (args.length != 4) {
+				throw new NumberFormatException();
+			}
+			switch (args[0]) {
+			case "--pmt":
+				this.principal = Double.parseDouble(args[1]);
+				this.apr = Float.parseFloat(args[2]);
+				this.numberOfPayments = Integer.parseInt(args[3]);
+				break;
+			case "--apr":
+				this.principal = Double.parseDouble(args[1]);
+				this.numberOfPayments = Integer.parseInt(args[2]);
+				this.monthlyAmount = Double.parseDouble(args[3]);
+				break;
+			case "--term":
+				this.principal = Double.parseDouble(args[1]);
+				this.apr = Float.parseFloat(args[2]);
+				this.monthlyAmount = Double.parseDouble(args[3]);
+				break;
+			default:
+				this.apr = Float.parseFloat(args[1]);
+				this.numberOfPayments = Integer.parseInt(args[2]);
+				this.monthlyAmount = Double.parseDouble(args[3]);
+				break;
+			}
+		}
+		catch (NumberFormatException e) {
+			System.out.println(ONE_SHOT_USAGE);
+			return;
+		}
+		if (!isValidAmount(this.principal) || !isValidAmount(this.apr) || !isValidAmount(this.monthlyAmount)
+				|| (!args[0].equals("--term") && this.numberOfPayments <= 0)) {
+			System.out.println(ONE_SHOT_USAGE);
+			return;
+		}
+		
+		switch (args[0]) {
+		case "--pmt":
+			calculateMonthlyAmount();
+			break;
+		case "--apr":
+			calculateBoundedAPR();
+			break;
+		case "--term":
+			calculateNumberOfPayments();
+			break;
+		default:
+			calculatePrincipal();
+			break;
+		}
+	}
+	
+	// A one-shot amount must be a finite number that is not negative. NaN fails every comparison, so test >= 0.
+	private static boolean isValidAmount(double value) {
+		return value >= 0 && !Double.isInfinite(value);
+	}
+	
 	public void runMenu() {
 		while (!exit) {
 			printMainMenu();
@@ -72,7 +172,6 @@ public class CalculatorMenu {
 	// Evaluates the Main Menu user selection.
 	//-----------------------------------------------------------------------------------------------------------------
 	private void mainMenuSelection(int choice) {
-		Scanner in = new Scanner(System.in);
 		switch(choice) {
 		case 0:
 			exit = true;
@@ -84,20 +183,10 @@ public class CalculatorMenu {
 			this.apr = getAPRInput();
 			this.numberOfPayments = getNumberOfPaymentsInput();
 			this.principal = getPrincipalInput();
-			this.monthlyAmount = calculator.calculate(principal, apr, numberOfPayments);
-			if ((this.principal % this.numberOfPayments) != 0) {
-				System.out.println("\n Calculated Monthly Amount: " + formatMonthlyAmount.format(this.monthlyAmount)
-						+ " for the first payment, and " + formatMonthlyAmount.format(calculator.regularPayment())
-						+ " thereafter.");
-			}
-			else {
-			System.out.println("\n Calculated Monthly Amount: " + formatMonthlyAmount.format(this.monthlyAmount));
-			}
+			System.out.println();
+			calculateMonthlyAmount();
 			if (getSavedResultsInput().equalsIgnoreCase("y")) {
-				savedResults.add("APR: " + formatAPR.format(this.apr/100)
-				+ "\tNumber of Months: " + formatNumberOfPayments.format(this.numberOfPayments)
-				+ "\tPrincipal: " + formatPrincipal.format(this.principal)
-				+ "\tCalculated Monthly Amount: " + formatMonthlyAmount.format(this.monthlyAmount));
+				saveResult(SolveType.PAYMENT);
 			}
 			break;
 		case 2:
@@ -105,13 +194,10 @@ public class CalculatorMenu {
 			this.monthlyAmount = getMonthlyAmountInput();
 			this.numberOfPayments = getNumberOfPaymentsInput();
 			this.principal = getPrincipalInput();
-			this.apr = calculator.calculate(this.principal, this.numberOfPayments, this.monthlyAmount);
-			System.out.println("\n Calculated APR: " + formatAPR.format(this.apr*12));
+			System.out.println();
+			calculateAPR();
 			if (getSavedResultsInput().equalsIgnoreCase("y")) {
-				savedResults.add("Monthly Amount: " + formatMonthlyAmount.format(this.monthlyAmount)
-				+ "\tNumber of Months: " + formatNumberOfPayments.format(this.numberOfPayments)
-				+ "\tPrincipal: " + formatPrincipal.format(this.principal)
-				+ "\tCalculated APR: " + formatAPR.format(this.apr*12));
+				saveResult(SolveType.INTEREST_RATE);
 			}
 			break;
 		case 3:
@@ -119,13 +205,10 @@ public class CalculatorMenu {
 			this.monthlyAmount = getMonthlyAmountInput();
 			this.apr = getAPRInput();
 			this.principal = getPrincipalInput();
-			this.numberOfPayments = calculator.calculate(this.principal, this.apr, this.monthlyAmount);
-			System.out.println("\n Calculated Number of Payments: " + formatNumberOfPayments.format(this.numberOfPayments));
+			System.out.println();
+			calculateNumberOfPayments();
 			if (getSavedResultsInput().equalsIgnoreCase("y")) {
-				savedResults.add("APR: " + formatAPR.format(this.apr/100)
-				+ "\tMonthly Amount: " + formatMonthlyAmount.format(this.monthlyAmount)
-				+ "\tPrincipal: " + formatPrincipal.format(this.principal)
-				+ "\tCalculated Number of Payments: " + formatNumberOfPayments.format(this.numberOfPayments));
+				saveResult(SolveType.NUMBER_OF_PAYMENTS);
 			}
 			break;
 		case 4:
@@ -133,32 +216,132 @@ public class CalculatorMenu {
 			this.monthlyAmount = getMonthlyAmountInput();
 			this.apr = getAPRInput();
 			this.numberOfPayments = getNumberOfPaymentsInput();
-			this.principal = calculator.calculate(this.apr, this.numberOfPayments, this.monthlyAmount);
-			System.out.println("\n Calculated Principal: " + formatPrincipal.format(this.principal));
+			System.out.println();
+			calculatePrincipal();
 			if (getSavedResultsInput().equalsIgnoreCase("y")) {
-				savedResults.add("APR: " + formatAPR.format(this.apr/100)
-				+ "\tNumber of Months: " + formatNumberOfPayments.format(this.numberOfPayments)
-				+ "\tMonthly Amount: " + formatMonthlyAmount.format(this.monthlyAmount)
-				+ "\tCalculated Principal: " + formatPrincipal.format(this.principal));
+				saveResult(SolveType.LOAN_AMOUNT);
 			}
 			break;
 		case 5:
 			System.out.println();
 			printAllSavedResults();
 			System.out.println("Press Enter to return to the Main Menu");
-			in.nextLine();
+			input().nextLine();
 			break;
 		default:
 			break;
 		}
 	}
 	
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the Monthly Amount from the current principal, apr and number of payments, and prints it.
+	//-----------------------------------------------------------------------------------------------------------------
+	private void calculateMonthlyAmount() {
+		this.monthlyAmount = calculator.calculate(principal, apr, numberOfPayments);
+		StringBuilder line = formatMonthlyAmount.append(new StringBuilder(96).append(" Calculated Monthly Amount: "),
+				this.monthlyAmount);
+		// Only a 0% apr payment has the lost pennies added to the first payment
+		if (calculator.getInterestRate() == 0 && (this.principal % this.numberOfPayments) != 0) {
+			formatMonthlyAmount.append(line.append(" for the first payment, and "), calculator.regularPayment())
+					.append(" thereafter.");
+		}
+		System.out.println(line);
+	}
+	
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the APR from the current principal, number of payments and monthly amount, and prints it.
+	//-----------------------------------------------------------------------------------------------------------------
+	private void calculateAPR() {
+		this.apr = calculator.calculate(this.principal, this.numberOfPayments, this.monthlyAmount);
+		System.out.println(formatAPR.append(new StringBuilder(48).append(" Calculated APR: "), this.apr*12));
+	}
+	
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the APR with the bounded solve, for one-shot runs, and prints it. Prints a message instead when there
+	// is no rate for the inputs or the solve did not converge.
+	//-----------------------------------------------------------------------------------------------------------------
+	private void calculateBoundedAPR() {
+		QuoteResult result = new QuoteEngine().boundedInterestRate(this.principal, this.numberOfPayments,
+				this.monthlyAmount);
+		if (Double.isNaN(result.getInterestRate()) || result.getIterations() > QuoteEngine.MAX_BOUNDED_ITERATIONS) {
+			System.out.println(" The APR could not be calculated for these values.");
+			return;
+		}
+		this.apr = (float) result.getInterestRate();
+		System.out.println(formatAPR.append(new StringBuilder(48).append(" Calculated APR: "), this.apr*12));
+	}
+	
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the Number of Payments from the current principal, apr and monthly amount, and prints it.
+	//-----------------------------------------------------------------------------------------------------------------
+	private void calculateNumberOfPayments() {
+		this.numberOfPayments = calculator.calculate(this.principal, this.apr, this.monthlyAmount);
+		System.out.println(formatNumberOfPayments.append(
+				new StringBuilder(48).append(" Calculated Number of Payments: "), this.numberOfPayments));
+	}
+	
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the Principal from the current apr, number of payments and monthly amount, and prints it.
+	//-----------------------------------------------------------------------------------------------------------------
+	private void calculatePrincipal() {
+		this.principal = calculator.calculate(this.apr, this.numberOfPayments, this.monthlyAmount);
+		System.out.println(formatPrincipal.append(new StringBuilder(48).append(" Calculated Principal: "),
+				this.principal));
+	}
+	
 	//-----------------------------------------------------------------------------------------------------------------
 	// Prints all calculated results the user saved back to the user.
 	//-----------------------------------------------------------------------------------------------------------------
 	private void printAllSavedResults() {
-		for (int i = 0; i < savedResults.size(); i++) {
-			System.out.println("Result " + (i+1) + ":\n" + savedResults.get(i) + "\n");
+		savedResults.forEach(null, 0, Integer.MAX_VALUE, (index, solveType, principal, apr, numberOfPayments,
+				monthlyAmount) -> {
+			savedResultLine.setLength(0);
+			savedResultLine.append("Result ").append(index+1).append(":\n");
+			appendSavedResult(savedResultLine, solveType, principal, apr, numberOfPayments, monthlyAmount);
+			System.out.println(savedResultLine.append('\n'));
+		});
+	}
+	
+	//-----------------------------------------------------------------------------------------------------------------
+	// Saves the values of the current calculation. The apr is the APR input, or the monthly rate for an APR solve.
+	//-----------------------------------------------------------------------------------------------------------------
+	private void saveResult(SolveType solveType) {
+		if (!savedResults.add(solveType, this.principal, this.apr, this.numberOfPayments, this.monthlyAmount)) {
+			System.out.println("\n The saved results limit of " + MAX_SAVED_RESULTS + " has been reached. "
+					+ "This result was not saved.");
+		}
+	}
+	
+	//-----------------------------------------------------------------------------------------------------------------
+	// Appends a saved result, formatted for display, to the builder.
+	//-----------------------------------------------------------------------------------------------------------------
+	private void appendSavedResult(StringBuilder line, SolveType solveType, double principal, float apr,
+			int numberOfPayments, double monthlyAmount) {
+		switch (solveType) {
+		case PAYMENT:
+			formatAPR.append(line.append("APR: "), apr/100);
+			formatNumberOfPayments.append(line.append("\tNumber of Months: "), numberOfPayments);
+			formatPrincipal.append(line.append("\tPrincipal: "), principal);
+			formatMonthlyAmount.append(line.append("\tCalculated Monthly Amount: "), monthlyAmount);
+			break;
+		case INTEREST_RATE:
+			formatMonthlyAmount.append(line.append("Monthly Amount: "), monthlyAmount);
+			formatNumberOfPayments.append(line.append("\tNumber of Months: "), numberOfPayments);
+			formatPrincipal.append(line.append("\tPrincipal: "), principal);
+			formatAPR.append(line.append("\tCalculated APR: "), apr*12);
+			break;
+		case NUMBER_OF_PAYMENTS:
+			formatAPR.append(line.append("APR: "), apr/100);
+			formatMonthlyAmount.append(line.append("\tMonthly Amount: "), monthlyAmount);
+			formatPrincipal.append(line.append("\tPrincipal: "), principal);
+			formatNumberOfPayments.append(line.append("\tCalculated Number of Payments: "), numberOfPayments);
+			break;
+		default:
+			formatAPR.append(line.append("APR: "), apr/100);
+			formatNumberOfPayments.append(line.append("\tNumber of Months: "), numberOfPayments);
+			formatMonthlyAmount.append(line.append("\tMonthly Amount: "), monthlyAmount);
+			formatPrincipal.append(line.append("\tCalculated Principal: "), principal);
+			break;
 		}
 	}
 	
@@ -166,12 +349,11 @@ public class CalculatorMenu {
 	// Prompts the user to make a selection and handles their input for the Main Menu. 
 	//-----------------------------------------------------------------------------------------------------------------
 	private int getMenuInput() {
-		Scanner in = new Scanner(System.in);
 		int choice = -1;
 		while (choice < 0 || choice > 5) {
 			try {
 				System.out.print(" \tSelection: ");
-				choice = Integer.parseInt(in.nextLine());
+				choice = Integer.parseInt(input().nextLine());
 				if (choice < 0 || choice > 5) {
 					System.out.println("\n Invalid selection. Please enter a value between 0 and 5.\n");
 				}
@@ -187,12 +369,11 @@ public class CalculatorMenu {
 	// Prompts the user to enter the Number of Months, and handles the input.
 	//-----------------------------------------------------------------------------------------------------------------
 	private int getNumberOfPaymentsInput() {
-		Scanner in = new Scanner(System.in);
 		int input = -1;
 		while (input <= 0) {
 			try {
 				System.out.print("\n Please enter the Number of Months: ");
-				input = Integer.parseInt(in.nextLine());
+				input = Integer.parseInt(input().nextLine());
 				if (input < 0) {
 					System.out.println("\n Invalid entry. Please enter a positive value.");
 				}
@@ -210,12 +391,11 @@ public class CalculatorMenu {
 	// Prompts the user to enter the Monthly Amount, and handles the input.
 	//-----------------------------------------------------------------------------------------------------------------
 	private double getMonthlyAmountInput() {
-		Scanner in = new Scanner(System.in);
 		double input = -1;
 		while (input < 0) {
 			try {
 				System.out.print("\n Please enter the Monthly Amount: ");
-				input = Double.parseDouble(in.nextLine());
+				input = Double.parseDouble(input().nextLine());
 				if (input < 0) {
 					System.out.println("\n Invalid entry. Please enter a positive value.");
 				}
@@ -233,12 +413,11 @@ public class CalculatorMenu {
 	// Prompts the user to enter the Principal Amount, and handles the input.
 	//-----------------------------------------------------------------------------------------------------------------
 	private double getPrincipalInput() {
-		Scanner in = new Scanner(System.in);
 		double input = -1;
 		while (input < 0) {
 			try {
 				System.out.print("\n Please enter the Principal Amount: ");
-				input = Double.parseDouble(in.nextLine());
+				input = Double.parseDouble(input().nextLine());
 				if (input < 0) {
 					System.out.println("\n Invalid entry. Please enter a positive value.");
 				}
@@ -256,12 +435,11 @@ public class CalculatorMenu {
 	// Prompts the user to enter the APR, and handles the input.
 	//-----------------------------------------------------------------------------------------------------------------
 	private float getAPRInput() {
-		Scanner in = new Scanner(System.in);
 		float input = -1;
 		while (input < 0) {
 			try {
 				System.out.print("\n Please enter the APR (#.####): ");
-				input = Float.parseFloat(in.nextLine());
+				input = Float.parseFloat(input().nextLine());
 				if (input < 0) {
 					System.out.println("\n Invalid entry. Please enter a positive value.");
 				}
@@ -279,15 +457,24 @@ public class CalculatorMenu {
 	// Prompts if they would like to save their calculated results, and handles the input.
 	//-----------------------------------------------------------------------------------------------------------------
 	private String getSavedResultsInput() {
-		Scanner in = new Scanner(System.in);
 		String input = "";
 		while (!input.equalsIgnoreCase("y") && !input.equalsIgnoreCase("n")) {
 		System.out.print("\n Would you like to save these results (Y/N)? ");
-		input = in.nextLine();
+		input = input().nextLine();
 			if (!input.equalsIgnoreCase("y") && !input.equalsIgnoreCase("n")) {
 			System.out.println("\n Invalid entry. Please enter \"Y\" to save the results or \"N\" to discard them.");
 			}
 		}
 		return input;
 	}
+	
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the Scanner for the user's input, creating it on the first prompt.
+	//-----------------------------------------------------------------------------------------------------------------
+	private Scanner input() {
+		if (in == null) {
+			in = new Scanner(System.in);
+		}
+		return in;
+	}
 }
@@ -12,30 +12,26 @@
  **********************************************************************************************************************
  **/
 
-import java.text.DecimalFormat;
-
 public class FinanceCalculator {
 	private double loanAmount; 
 	private float interestRate; 
 	private int numberOfPayments; 
 	private double paymentAmount; 
 	
-	// Variables used in handling penny loss for 0% apr scenarios
-	private float remainder;
+	// Regular payment amount used in handling penny loss for 0% apr scenarios
 	private double payment;
-	private int tempRemainder;
-	private int hold;
-	private double paymentDecimal;
-	private double remainderDecimal;
+	
+	// Stateless engine that performs the calculations; this class keeps the most recent inputs and results
+	private static final QuoteEngine engine = new QuoteEngine();
 	
 	/**
 	* Creates format objects to be used in the toString method for returning loanAmount, interestRate, 
 	* numberOfPayments, and paymentAmount
 	*/
-	DecimalFormat formatLoanAmount = new DecimalFormat("$###,###0.00");
-	DecimalFormat formatInterestRate = new DecimalFormat("0.0000%");
-	DecimalFormat formatNumberOfPayments = new DecimalFormat("###");
-	DecimalFormat formatPaymentAmount = new DecimalFormat("$###,###.00");
+	QuoteFormatter formatLoanAmount = QuoteFormatter.PRINCIPAL;
+	QuoteFormatter formatInterestRate = QuoteFormatter.PERCENT;
+	QuoteFormatter formatNumberOfPayments = QuoteFormatter.COUNT;
+	QuoteFormatter formatPaymentAmount = QuoteFormatter.MONTHLY_AMOUNT;
 	
 	public FinanceCalculator() {} // default constructor
 	
@@ -43,17 +39,11 @@ public class FinanceCalculator {
 	// Calculates loan amount (PV)
 	//-----------------------------------------------------------------------------------------------------------------
 	public double calculate (float interestRate, int numberOfPayments, double paymentAmount) {
-		this.interestRate = (interestRate / 100) / 12;
+		QuoteResult result = engine.presentValue(interestRate, numberOfPayments, paymentAmount);
+		this.interestRate = (float) result.getInterestRate();
 		this.numberOfPayments = numberOfPayments;
 		this.paymentAmount = paymentAmount;
-		
-		if (this.interestRate == 0.0) {
-			this.loanAmount = this.numberOfPayments * this.paymentAmount;
-		}
-		else {
-			this.loanAmount = (this.paymentAmount/this.interestRate) * 
-					(1 - (1 / Math.pow((1 + this.interestRate), this.numberOfPayments)));
-		}
+		this.loanAmount = result.getLoanAmount();
 		return this.loanAmount;	
 	}
 	
@@ -63,15 +53,11 @@ public class FinanceCalculator {
 	// Initial guess = 2(n * PMT - PV) / n * PV
 	//-----------------------------------------------------------------------------------------------------------------
 	public float calculate (double loanAmount, int numberOfPayments, double paymentAmount) {
+		QuoteResult result = engine.interestRate(loanAmount, numberOfPayments, paymentAmount);
 		this.loanAmount = loanAmount;
 		this.numberOfPayments = numberOfPayments;
 		this.paymentAmount = paymentAmount;
-		
-		double initialGuessForX = (2 * (this.numberOfPayments * this.paymentAmount - 
-				this.loanAmount) / (this.numberOfPayments * this.loanAmount));
-		
-		this.interestRate = (float) findRoot(initialGuessForX);
-		
+		this.interestRate = (float) result.getInterestRate();
 		return this.interestRate;
 	}
 	
@@ -79,18 +65,11 @@ public class FinanceCalculator {
 	// Calculates number of months/payments (n)
 	//-----------------------------------------------------------------------------------------------------------------
 	public int calculate (double loanAmount, float interestRate, double paymentAmount) {
+		QuoteResult result = engine.numberOfPayments(loanAmount, interestRate, paymentAmount);
 		this.loanAmount = loanAmount;
-		this.interestRate = (interestRate / 100) / 12;
+		this.interestRate = (float) result.getInterestRate();
 		this.paymentAmount = paymentAmount;
-		
-		if (this.interestRate == 0.0) {
-			this.numberOfPayments = (int) (this.loanAmount / this.paymentAmount);
-		}
-		else
-			this.numberOfPayments = (int) (Math.log((this.paymentAmount / 
-					this.interestRate) / ((this.paymentAmount/this.interestRate) - 
-							this.loanAmount)) / Math.log(1.0 + this.interestRate));
-		
+		this.numberOfPayments = result.getNumberOfPayments();
 		return this.numberOfPayments;
 	}
 	
@@ -98,36 +77,18 @@ public class FinanceCalculator {
 	// Calculates monthly payment amount (PMT)
 	//-----------------------------------------------------------------------------------------------------------------
 	public double calculate (double loanAmount, float interestRate, int numberOfPayments) {
-		double finalPayment;
+		QuoteResult result = engine.payment(loanAmount, interestRate, numberOfPayments);
 		this.loanAmount = loanAmount;
-		this.interestRate = (interestRate / 100) / 12;
+		this.interestRate = (float) result.getInterestRate();
 		this.numberOfPayments = numberOfPayments;
 		
-		if (this.interestRate == 0.0) {
-			if ((this.loanAmount % this.numberOfPayments) == 0) {
-				this.paymentAmount = this.loanAmount / this.numberOfPayments;
-				return this.paymentAmount;
-			}
-			else {
-				this.remainder = (float) (this.loanAmount % this.numberOfPayments);
-				this.payment = ((this.loanAmount - remainder) / this.numberOfPayments);
-				this.tempRemainder = (int) ((remainder * 100) % this.numberOfPayments);
-				this.hold = (int) ((remainder * 100) / this.numberOfPayments);
-				this.paymentDecimal = (double) hold / 100;
-				this.remainderDecimal = (double) tempRemainder / 100;
-				
-				payment = payment + paymentDecimal;
-				finalPayment = payment + remainderDecimal;
-				return finalPayment;
-			}
+		if (result.isPennyAdjusted()) {
+			this.payment = result.getRegularPayment();
 		}
 		else {
-			this.paymentAmount = (this.loanAmount * this.interestRate * 
-					Math.pow((1 + this.interestRate), this.numberOfPayments)) / 
-					(Math.pow((1 + this.interestRate), this.numberOfPayments) - 1);
-				
-			return this.paymentAmount;
+			this.paymentAmount = result.getPaymentAmount();
 		}
+		return result.getPaymentAmount();
 	}
 	
 	//-----------------------------------------------------------------------------------------------------------------
@@ -137,43 +98,6 @@ public class FinanceCalculator {
 		return this.payment;
 	}
 	
-	// Represents a very small number near zero to be used with findRoot method
-	static final double EPSILON = 0.00001; 
-	
-	//-----------------------------------------------------------------------------------------------------------------
-	// f(x) 
-	//-----------------------------------------------------------------------------------------------------------------
-	private double function(double x) { 
-		return ((this.loanAmount * x * Math.pow(1 + x, this.numberOfPayments))
-				/(Math.pow(1 + x, this.numberOfPayments) - 1)) - this.paymentAmount; 
-	} 
-	
-	//-----------------------------------------------------------------------------------------------------------------
-	// f'(x) 
-	//-----------------------------------------------------------------------------------------------------------------
-	private double derivativeFunction(double x) { 
-		return (this.loanAmount * Math.pow(x + 1, this.numberOfPayments - 1) 
-				* (x * Math.pow(x + 1, this.numberOfPayments) + Math.pow(x + 1, this.numberOfPayments) 
-				- (this.numberOfPayments * x) - x - 1)) / ((Math.pow(x + 1, this.numberOfPayments) - 1) 
-						* (Math.pow(x + 1,  this.numberOfPayments) - 1)); 
-	} 
-	
-	//-----------------------------------------------------------------------------------------------------------------
-	// Finds the root of f(x)
-	//-----------------------------------------------------------------------------------------------------------------
-	private double findRoot(double x) { 
-		double a = function(x) / derivativeFunction(x); 
-		while (Math.abs(a) >= EPSILON) 
-		{ 
-			a = function(x) / derivativeFunction(x); 
-	
-			// x(i+1) = x(i) - f(x) / f'(x) 
-			x = x - a; 
-		} 
-	
-		return Math.round(x * 100000.0)/100000.0; 
-	} 
-	
 	//-----------------------------------------------------------------------------------------------------------------
 	// Accessors and mutators for finance calculator variables
 	//-----------------------------------------------------------------------------------------------------------------
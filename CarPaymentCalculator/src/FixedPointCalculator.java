@@ -0,0 +1,173 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Fixed-point version of the four loan calculations for reconciliation work. Money is held in whole
+ * 					cents as a long and the APR in whole basis points as an int (490 is 4.90%), so there are no float
+ * 					conversions and every result is a whole number of cents.
+ *
+ * 					Rounding rules:
+ * 						- Payment and loan amounts are rounded to the nearest cent, with half a cent rounded up.
+ * 						- For 0% apr loans the pennies that do not divide evenly are paid with the first payment.
+ * 						- The number of payments includes a final, smaller payment when one is needed. A remainder
+ * 						  left only by rounding the payment to the cent is added to the last payment instead.
+ * 						- The APR is the lowest whole basis point rate whose payment is at least the given payment.
+ *
+ * 					A number of payments that is not positive is rejected with IllegalArgumentException.
+ *
+ * 					Powers are computed by repeated squaring and logarithms with StrictMath, so results are the same
+ * 					on every platform. No objects are created, and a single FixedPointCalculator can be shared by
+ * 					many threads.
+ *
+ **********************************************************************************************************************
+ **/
+
+public final class FixedPointCalculator {
+
+	// Basis points per one monthly interest rate unit: APR / 100 (percent) / 100 (basis points) / 12 (months)
+	static final double BASIS_POINTS_PER_MONTHLY_RATE = 120000.0;
+
+	// Highest APR the interest rate solve will return, 1000.00%
+	static final int MAX_BASIS_POINTS = 100000;
+
+	public FixedPointCalculator() {} // default constructor
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Converts a dollar amount to whole cents, rounding half a cent up.
+	//-----------------------------------------------------------------------------------------------------------------
+	public static long toCents(double amount) {
+		return (long) Math.floor(amount * 100 + 0.5);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Converts an APR percentage (e.g. 4.9 for 4.9%) to whole basis points, rounding half a basis point up.
+	//-----------------------------------------------------------------------------------------------------------------
+	public static int toBasisPoints(double apr) {
+		return (int) Math.floor(apr * 100 + 0.5);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates loan amount (PV) in cents
+	//-----------------------------------------------------------------------------------------------------------------
+	public long presentValue(int aprBasisPoints, int numberOfPayments, long paymentCents) {
+		checkNumberOfPayments(numberOfPayments);
+		if (aprBasisPoints == 0) {
+			return numberOfPayments * paymentCents;
+		}
+		double interestRate = aprBasisPoints / BASIS_POINTS_PER_MONTHLY_RATE;
+		double discount = 1 - (1 / power(1 + interestRate, numberOfPayments));
+		return roundHalfUp((paymentCents / interestRate) * discount);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the APR in basis points
+	// Binary search over whole basis points, so the solve always takes at most 17 steps.
+	//-----------------------------------------------------------------------------------------------------------------
+	public int interestRate(long loanCents, int numberOfPayments, long paymentCents) {
+		checkNumberOfPayments(numberOfPayments);
+		int low = 0;
+		int high = MAX_BASIS_POINTS;
+		if (payment(loanCents, low, numberOfPayments) >= paymentCents) {
+			return low;
+		}
+		if (payment(loanCents, high, numberOfPayments) < paymentCents) {
+			return high;
+		}
+		// payment(low) < paymentCents <= payment(high)
+		while (high - low > 1) {
+			int middle = (low + high) >>> 1;
+			if (payment(loanCents, middle, numberOfPayments) < paymentCents) {
+				low = middle;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return high;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates number of months/payments (n), including a final smaller payment when one is needed. Returns -1
+	// when the payment does not cover the first month's interest, so the loan is never paid off.
+	//-----------------------------------------------------------------------------------------------------------------
+	public int numberOfPayments(long loanCents, int aprBasisPoints, long paymentCents) {
+		if (paymentCents <= 0) {
+			return -1;
+		}
+		if (aprBasisPoints == 0) {
+			return (int) ((loanCents + paymentCents - 1) / paymentCents);
+		}
+		double interestRate = aprBasisPoints / BASIS_POINTS_PER_MONTHLY_RATE;
+		double interest = loanCents * interestRate;
+		if (paymentCents <= interest) {
+			return -1;
+		}
+		double months = StrictMath.log(paymentCents / (paymentCents - interest)) / StrictMath.log1p(interestRate);
+		int whole = (int) Math.floor(months);
+		if (whole == months) {
+			return whole;
+		}
+
+		// A remainder no larger than rounding each payment by half a cent could leave, with interest, comes from
+		// rounding the payment to the cent and is added to the last payment instead of needing another payment
+		double growth = power(1 + interestRate, whole);
+		double remainder = (loanCents * growth - paymentCents * (growth - 1) / interestRate) * (1 + interestRate);
+		double roundingError = 0.5 * (growth - 1) / interestRate * (1 + interestRate);
+		return (whole > 0 && remainder <= roundingError) ? whole : whole + 1;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the regular monthly payment amount (PMT) in cents
+	//-----------------------------------------------------------------------------------------------------------------
+	public long payment(long loanCents, int aprBasisPoints, int numberOfPayments) {
+		checkNumberOfPayments(numberOfPayments);
+		if (aprBasisPoints == 0) {
+			return loanCents / numberOfPayments;
+		}
+		double interestRate = aprBasisPoints / BASIS_POINTS_PER_MONTHLY_RATE;
+		double growth = power(1 + interestRate, numberOfPayments);
+		return roundHalfUp((loanCents * interestRate * growth) / (growth - 1));
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the first payment in cents. For 0% apr loans this includes the pennies lost due to rounding; for
+	// every other loan it is the regular payment.
+	//-----------------------------------------------------------------------------------------------------------------
+	public long firstPayment(long loanCents, int aprBasisPoints, int numberOfPayments) {
+		checkNumberOfPayments(numberOfPayments);
+		if (aprBasisPoints == 0) {
+			return loanCents / numberOfPayments + loanCents % numberOfPayments;
+		}
+		return payment(loanCents, aprBasisPoints, numberOfPayments);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Raises base to a non-negative whole power by repeated squaring. Only multiplications are used, so the result is
+	// the same on every platform, and it takes fewer steps than pow for loan terms.
+	//-----------------------------------------------------------------------------------------------------------------
+	static double power(double base, int exponent) {
+		double result = 1;
+		while (exponent > 0) {
+			if ((exponent & 1) != 0) {
+				result *= base;
+			}
+			base *= base;
+			exponent >>>= 1;
+		}
+		return result;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Rejects a term of no payments, which has no payment and would divide by zero on the 0% apr path.
+	//-----------------------------------------------------------------------------------------------------------------
+	private static void checkNumberOfPayments(int numberOfPayments) {
+		if (numberOfPayments <= 0) {
+			throw new IllegalArgumentException("Number of payments must be positive: " + numberOfPayments);
+		}
+	}
+
+	private static long roundHalfUp(double cents) {
+		return (long) Math.floor(cents + 0.5);
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Lock-free histogram of positive long values, such as latencies in nanoseconds or iteration
+ * 					counts. Values are counted in log-linear buckets: every power of two is split into 2^subBucketBits
+ * 					equal buckets, so a recorded value is reported within 1 / 2^subBucketBits of its true value
+ * 					(about 6% with the default of 4 bits), and values below 2^subBucketBits are exact.
+ *
+ * 					Recording is an atomic increment of one bucket and two LongAdder updates, with no locks and no
+ * 					allocation, so any number of threads may record at once. Reads are not a consistent snapshot
+ * 					while values are being recorded, which is fine for monitoring. Histograms with the same number of
+ * 					sub-bucket bits can be added together, so parallel work can record into one histogram per task
+ * 					and merge them at the end instead of contending on shared buckets.
+ *
+ **********************************************************************************************************************
+ **/
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class LatencyHistogram {
+	static final int DEFAULT_SUB_BUCKET_BITS = 4;
+
+	private final int subBucketBits;
+	private final int subBuckets;
+	private final int buckets;		// one group of subBuckets for the exact values, and one per higher power of two
+	private final AtomicLongArray counts;
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	public LatencyHistogram() {
+		this(DEFAULT_SUB_BUCKET_BITS);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Creates a histogram that splits every power of two into 2^subBucketBits buckets (1 to 16 bits).
+	//-----------------------------------------------------------------------------------------------------------------
+	public LatencyHistogram(int subBucketBits) {
+		if (subBucketBits < 1 || subBucketBits > 16) {
+			throw new IllegalArgumentException("Sub-bucket bits must be between 1 and 16: " + subBucketBits);
+		}
+		this.subBucketBits = subBucketBits;
+		this.subBuckets = 1 << subBucketBits;
+		this.buckets = (64 - subBucketBits + 1) * subBuckets;
+		this.counts = new AtomicLongArray(buckets);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Records a value. Negative values are recorded as 0.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		counts.incrementAndGet(bucket(value));
+		count.increment();
+		sum.add(value);
+
+		long current = max.get();
+		while (value > current && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Adds every value recorded by another histogram with the same number of sub-bucket bits.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void add(LatencyHistogram other) {
+		if (other.subBucketBits != subBucketBits) {
+			throw new IllegalArgumentException("Sub-bucket bits differ: " + subBucketBits + " and "
+					+ other.subBucketBits);
+		}
+		for (int k = 0; k < buckets; k++) {
+			long bucketCount = other.counts.get(k);
+			if (bucketCount != 0) {
+				counts.addAndGet(k, bucketCount);
+			}
+		}
+		count.add(other.count.sum());
+		sum.add(other.sum.sum());
+
+		long value = other.getMax();
+		long current = max.get();
+		while (value > current && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the bucket that counts a value that is not negative.
+	//-----------------------------------------------------------------------------------------------------------------
+	int bucket(long value) {
+		if (value < subBuckets) {
+			return (int) value;
+		}
+		int shift = (63 - Long.numberOfLeadingZeros(value)) - subBucketBits;
+		return (shift + 1) * subBuckets + (int) ((value >>> shift) & (subBuckets - 1));
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the largest value counted by a bucket.
+	//-----------------------------------------------------------------------------------------------------------------
+	long highestValue(int bucket) {
+		if (bucket < subBuckets) {
+			return bucket;
+		}
+		int shift = bucket / subBuckets - 1;
+		long lowest = (long) (subBuckets + bucket % subBuckets) << shift;
+		return lowest + ((1L << shift) - 1);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the value below which the given percentage (0 to 100) of recorded values fall, or 0 when nothing has
+	// been recorded. The result is the upper end of the bucket holding that value, capped at the largest value.
+	//-----------------------------------------------------------------------------------------------------------------
+	public long getValueAtPercentile(double percentile) {
+		long total = getCount();
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+		long seen = 0;
+		for (int k = 0; k < buckets; k++) {
+			seen += counts.get(k);
+			if (seen >= rank) {
+				return Math.min(highestValue(k), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Accessors for the summary of the recorded values
+	//-----------------------------------------------------------------------------------------------------------------
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long total = getCount();
+		return total == 0 ? 0 : (double) sum.sum() / total;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Clears every recorded value. Values recorded while the histogram is being reset may be partly kept.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void reset() {
+		for (int k = 0; k < buckets; k++) {
+			counts.set(k, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.set(0);
+	}
+
+	public String toString() {
+		return "LatencyHistogram [count=" + getCount() + ", mean=" + String.format("%.1f", getMean())
+				+ ", p50=" + getValueAtPercentile(50) + ", p99=" + getValueAtPercentile(99)
+				+ ", p99.9=" + getValueAtPercentile(99.9) + ", max=" + getMax() + "]";
+	}
+}
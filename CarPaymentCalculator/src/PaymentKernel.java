@@ -0,0 +1,25 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Inner loops of the BatchQuoteEngine parallel column overloads. ScalarPaymentKernel is always
+ * 					available and matches QuoteEngine bit-for-bit; VectorPaymentKernel (in the vector source folder)
+ * 					uses the incubating Vector API and is selected by BatchQuoteEngine when that module is present.
+ * 					Callers have already checked that the columns have the same length.
+ *
+ **********************************************************************************************************************
+ **/
+
+public interface PaymentKernel {
+	// Calculates the monthly payment amount (PMT) for parallel columns of principal, apr and number of payments
+	void payments(double[] loanAmounts, float[] aprs, int[] numberOfPayments, double[] out);
+
+	// Calculates the loan amount (PV) for parallel columns of apr, number of payments and monthly payment
+	void presentValues(float[] aprs, int[] numberOfPayments, double[] paymentAmounts, double[] out);
+
+	// Largest difference, in units in the last place, between the (1 + i)^n the kernel uses and Math.pow. PMT and PV
+	// values differ from QuoteEngine only through it, by a relative amount of at most about
+	// growthUlps * ulp(g) / (g * (g - 1)) where g = (1 + i)^n.
+	int getMaxGrowthUlpError();
+}
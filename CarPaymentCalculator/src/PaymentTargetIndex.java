@@ -0,0 +1,203 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Answers "I can pay $450 a month" over a dealer grid of APRs and terms. For every (APR, term) pair
+ * 					the principal a payment buys is the payment times the annuity factor (1 - 1 / (1 + i)^n) / i, or
+ * 					n at 0% apr. The factors are computed once and sorted, so the combinations whose price (principal
+ * 					plus any down payment) falls in a range are a contiguous run of the index, found with two binary
+ * 					searches instead of a loan amount (PV) solve per pair.
+ *
+ * 					Principals are reported with the QuoteEngine loan amount (PV) formula, bit-for-bit, and
+ * 					combinations whose factor lies within rounding error of a price limit are checked against it
+ * 					exactly. The index is immutable once built and safe to query from any number of threads.
+ *
+ **********************************************************************************************************************
+ **/
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+public final class PaymentTargetIndex {
+	// Relative difference allowed between factor * payment and the loan amount (PV) formula
+	private static final double FACTOR_ROUNDING = 1e-12;
+
+	// Grid points sorted by ascending annuity factor
+	private final float[] aprs;
+	private final int[] terms;
+	private final float[] interestRates;		// monthly interest rate
+	private final double[] discounts;			// 1 - (1 / (1 + i)^n), unused at 0% apr
+	private final double[] factors;				// principal bought by a payment of 1
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Receives the combinations found by a query, in ascending order of principal.
+	//-----------------------------------------------------------------------------------------------------------------
+	public interface CombinationHandler {
+		void combination(float apr, int numberOfPayments, double principal, double price);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Builds the index over every combination of the given APRs (in percent) and numbers of payments.
+	//-----------------------------------------------------------------------------------------------------------------
+	public PaymentTargetIndex(float[] gridAprs, int[] gridTerms) {
+		int size = gridAprs.length * gridTerms.length;
+		float[] pointAprs = new float[size];
+		int[] pointTerms = new int[size];
+		double[] pointDiscounts = new double[size];
+		double[] pointFactors = new double[size];
+		int point = 0;
+		for (float apr : gridAprs) {
+			float interestRate = QuoteEngine.monthlyRate(apr);
+			for (int numberOfPayments : gridTerms) {
+				if (numberOfPayments <= 0 || interestRate < 0) {
+					throw new IllegalArgumentException("Invalid grid point: " + apr + "% for " + numberOfPayments
+							+ " months.");
+				}
+				pointAprs[point] = apr;
+				pointTerms[point] = numberOfPayments;
+				pointDiscounts[point] = 1 - (1 / Math.pow((1 + interestRate), numberOfPayments));
+				pointFactors[point] = interestRate == 0.0 ? numberOfPayments : pointDiscounts[point] / interestRate;
+				point++;
+			}
+		}
+
+		Integer[] order = new Integer[size];
+		for (int k = 0; k < size; k++) {
+			order[k] = k;
+		}
+		Arrays.sort(order, Comparator.comparingDouble(k -> pointFactors[k]));
+
+		this.aprs = new float[size];
+		this.terms = new int[size];
+		this.interestRates = new float[size];
+		this.discounts = new double[size];
+		this.factors = new double[size];
+		for (int k = 0; k < size; k++) {
+			int source = order[k];
+			aprs[k] = pointAprs[source];
+			terms[k] = pointTerms[source];
+			interestRates[k] = QuoteEngine.monthlyRate(aprs[k]);
+			discounts[k] = pointDiscounts[source];
+			factors[k] = pointFactors[source];
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Visits every combination whose price, the principal the target payment buys plus the down payment, is between
+	// minPrice and maxPrice inclusive. Returns the number of combinations visited.
+	//-----------------------------------------------------------------------------------------------------------------
+	public int find(double targetPayment, double downPayment, double minPrice, double maxPrice,
+			CombinationHandler handler) {
+		int start = firstCandidate(targetPayment, downPayment, minPrice);
+		int end = endCandidate(targetPayment, downPayment, maxPrice);
+		int found = 0;
+		for (int k = start; k < end; k++) {
+			double principal = principal(k, targetPayment);
+			double price = principal + downPayment;
+			if (price >= minPrice && price <= maxPrice) {
+				handler.combination(aprs[k], terms[k], principal, price);
+				found++;
+			}
+		}
+		return found;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Visits every combination that buys a car of the given price, or more, with the target payment.
+	//-----------------------------------------------------------------------------------------------------------------
+	public int find(double targetPayment, double downPayment, double price, CombinationHandler handler) {
+		return find(targetPayment, downPayment, price, Double.POSITIVE_INFINITY, handler);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the number of combinations find would visit, without visiting them. Only combinations within rounding
+	// error of a price limit are priced, so the count takes two binary searches.
+	//-----------------------------------------------------------------------------------------------------------------
+	public int count(double targetPayment, double downPayment, double minPrice, double maxPrice) {
+		int start = firstCandidate(targetPayment, downPayment, minPrice);
+		int end = endCandidate(targetPayment, downPayment, maxPrice);
+		while (start < end && !inRange(start, targetPayment, downPayment, minPrice, maxPrice)) {
+			start++;
+		}
+		while (end > start && !inRange(end - 1, targetPayment, downPayment, minPrice, maxPrice)) {
+			end--;
+		}
+		return end - start;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the first index whose factor may buy at least minPrice, allowing for rounding.
+	//-----------------------------------------------------------------------------------------------------------------
+	private int firstCandidate(double targetPayment, double downPayment, double minPrice) {
+		if (!(targetPayment > 0) || Double.isInfinite(targetPayment)) {
+			throw new IllegalArgumentException("Invalid target payment: " + targetPayment
+					+ ". Please enter a positive value.");
+		}
+		double threshold = (minPrice - downPayment) / targetPayment;
+		return lowerBound(threshold - Math.abs(threshold) * FACTOR_ROUNDING);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the index after the last one whose factor may buy at most maxPrice, allowing for rounding.
+	//-----------------------------------------------------------------------------------------------------------------
+	private int endCandidate(double targetPayment, double downPayment, double maxPrice) {
+		double threshold = (maxPrice - downPayment) / targetPayment;
+		return upperBound(threshold + Math.abs(threshold) * FACTOR_ROUNDING);
+	}
+
+	private boolean inRange(int k, double targetPayment, double downPayment, double minPrice, double maxPrice) {
+		double price = principal(k, targetPayment) + downPayment;
+		return price >= minPrice && price <= maxPrice;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates loan amount (PV) for a grid point, the same as QuoteEngine.presentValue.
+	//-----------------------------------------------------------------------------------------------------------------
+	private double principal(int k, double paymentAmount) {
+		if (interestRates[k] == 0.0) {
+			return terms[k] * paymentAmount;
+		}
+		return (paymentAmount / interestRates[k]) * discounts[k];
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the first index whose factor is at least value.
+	//-----------------------------------------------------------------------------------------------------------------
+	private int lowerBound(double value) {
+		int low = 0;
+		int high = factors.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (factors[middle] < value) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the first index whose factor is greater than value.
+	//-----------------------------------------------------------------------------------------------------------------
+	private int upperBound(double value) {
+		int low = 0;
+		int high = factors.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (factors[middle] <= value) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	public int size() {
+		return factors.length;
+	}
+}
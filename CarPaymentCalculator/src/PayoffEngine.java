@@ -0,0 +1,338 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Early payoff of a loan with an extra amount paid every month and lump sums paid in given months.
+ * 					Answers when the loan is paid off, what the final (usually partial) payment is, and how much
+ * 					interest is saved compared with paying only the scheduled payment.
+ *
+ * 					Nothing is iterated month by month. With a monthly rate i and a payment P, the balance after m
+ * 					payments is B - (P - iB) ((1 + i)^m - 1) / i, so the balance reaches zero after
+ * 					n = -ln(1 - iB / P) / ln(1 + i) payments. The loan is paid off with floor(n) full payments and a
+ * 					final payment of the balance left plus one month of interest. Lump sums split the loan into
+ * 					segments: the balance jumps to the month of each lump sum with the same formula, the lump sum is
+ * 					subtracted, and the next segment starts from there. The cost of a payoff depends only on the
+ * 					number of lump sums, not on the term.
+ *
+ * 					The monthly rate is the float rate of QuoteEngine. Amounts are not rounded to the cent month by
+ * 					month, so they can differ by a few cents from AmortizationSchedule. A lump sum is paid right after
+ * 					the scheduled payment of its month, and a lump sum larger than the balance pays only the balance.
+ * 					A payment that does not cover the first month's interest never pays the loan off: the number of
+ * 					payments is NEVER, the final payment NaN and the interest infinite (so the interest saved is
+ * 					infinite when only the extra payments pay the loan off).
+ *
+ * 					The batch overloads take parallel primitive columns, one account per row with at most one lump
+ * 					sum, and are split across a ForkJoinPool like PortfolioRepricer. No objects are created per
+ * 					account.
+ *
+ **********************************************************************************************************************
+ **/
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class PayoffEngine {
+	static final int NEVER = -1;						// number of payments of a loan that is never paid off
+	static final double HALF_CENT = 0.005;				// balance treated as paid off
+	static final int DEFAULT_CHUNK_SIZE = 8192;			// accounts solved by one task without splitting further
+
+	// Indexes of the values a solve writes to its output array
+	private static final int PAYMENTS = 0;
+	private static final int FINAL_PAYMENT = 1;
+	private static final int INTEREST = 2;
+
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Creates an engine whose batch overloads use every core.
+	//-----------------------------------------------------------------------------------------------------------------
+	public PayoffEngine() {
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+	}
+
+	public PayoffEngine(int parallelism, int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+		}
+		this.pool = new ForkJoinPool(parallelism);
+		this.chunkSize = chunkSize;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Payoff of one loan: the number of payments, the final payment, and the interest paid and saved
+	//-----------------------------------------------------------------------------------------------------------------
+	public static final class Result {
+		private final int numberOfPayments;
+		private final double finalPayment;
+		private final double totalInterest;
+		private final double interestSaved;
+
+		Result(int numberOfPayments, double finalPayment, double totalInterest, double interestSaved) {
+			this.numberOfPayments = numberOfPayments;
+			this.finalPayment = finalPayment;
+			this.totalInterest = totalInterest;
+			this.interestSaved = interestSaved;
+		}
+
+		// Number of payments including the final one, or NEVER
+		public int getNumberOfPayments() {
+			return numberOfPayments;
+		}
+
+		// Amount paid in the last month, including any lump sum paid in that month
+		public double getFinalPayment() {
+			return finalPayment;
+		}
+
+		public double getTotalInterest() {
+			return totalInterest;
+		}
+
+		// Interest of the scheduled payment alone minus the interest with the extra payments
+		public double getInterestSaved() {
+			return interestSaved;
+		}
+
+		public String toString() {
+			return "Result [numberOfPayments=" + numberOfPayments + ", finalPayment=" + finalPayment
+					+ ", totalInterest=" + totalInterest + ", interestSaved=" + interestSaved + "]";
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Pays off a loan with extraPayment added to every scheduled payment.
+	//-----------------------------------------------------------------------------------------------------------------
+	public Result payoff(double balance, float apr, double payment, double extraPayment) {
+		return payoff(balance, apr, payment, extraPayment, null, null);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Pays off a loan with extraPayment added to every scheduled payment, and lumpAmounts[j] paid in month
+	// lumpMonths[j]. The months start at 1 and must be increasing. The lump sum arrays may be null.
+	//-----------------------------------------------------------------------------------------------------------------
+	public Result payoff(double balance, float apr, double payment, double extraPayment, int[] lumpMonths,
+			double[] lumpAmounts) {
+		int lumpCount = checkLumpSums(lumpMonths, lumpAmounts);
+		for (int j = 1; j < lumpCount; j++) {
+			if (lumpMonths[j] <= lumpMonths[j - 1]) {
+				throw new IllegalArgumentException("Lump sum months must be increasing.");
+			}
+		}
+		float interestRate = QuoteEngine.monthlyRate(apr);
+		double[] out = new double[3];
+		solve(balance, interestRate, payment, null, null, 0, 0, out);
+		double scheduledInterest = out[INTEREST];
+		solve(balance, interestRate, payment + extraPayment, lumpMonths, lumpAmounts, 0, lumpCount, out);
+		return new Result((int) out[PAYMENTS], out[FINAL_PAYMENT], out[INTEREST],
+				scheduledInterest - out[INTEREST]);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Pays off every account of the book with its extra monthly payment. The number of payments, final payment and
+	// interest saved of each account are written to the output columns.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void payoff(double[] balances, float[] aprs, double[] payments, double[] extraPayments,
+			int[] numberOfPaymentsOut, double[] finalPaymentsOut, double[] interestSavedOut) {
+		payoff(balances, aprs, payments, extraPayments, null, null, numberOfPaymentsOut, finalPaymentsOut,
+				interestSavedOut);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Pays off every account of the book with its extra monthly payment and one lump sum, lumpAmounts[k] paid in
+	// month lumpMonths[k] (a lump sum of 0 for none). The lump sum columns may both be null.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void payoff(double[] balances, float[] aprs, double[] payments, double[] extraPayments, int[] lumpMonths,
+			double[] lumpAmounts, int[] numberOfPaymentsOut, double[] finalPaymentsOut, double[] interestSavedOut) {
+		int count = balances.length;
+		int lumpCount = checkLumpSums(lumpMonths, lumpAmounts);
+		if (aprs.length != count || payments.length != count || extraPayments.length != count
+				|| numberOfPaymentsOut.length != count || finalPaymentsOut.length != count
+				|| interestSavedOut.length != count || (lumpMonths != null && lumpCount != count)) {
+			throw new IllegalArgumentException("Column lengths differ.");
+		}
+		pool.invoke(new PayoffTask(balances, aprs, payments, extraPayments, lumpMonths, lumpAmounts,
+				numberOfPaymentsOut, finalPaymentsOut, interestSavedOut, 0, count));
+	}
+
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Stops the pool's worker threads.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	// Solves the accounts from start up to, not including, end, splitting in half until a chunk is small enough
+	private final class PayoffTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] balances;
+		private final float[] aprs;
+		private final double[] payments;
+		private final double[] extraPayments;
+		private final int[] lumpMonths;
+		private final double[] lumpAmounts;
+		private final int[] numberOfPaymentsOut;
+		private final double[] finalPaymentsOut;
+		private final double[] interestSavedOut;
+		private final int start;
+		private final int end;
+
+		PayoffTask(double[] balances, float[] aprs, double[] payments, double[] extraPayments, int[] lumpMonths,
+				double[] lumpAmounts, int[] numberOfPaymentsOut, double[] finalPaymentsOut,
+				double[] interestSavedOut, int start, int end) {
+			this.balances = balances;
+			this.aprs = aprs;
+			this.payments = payments;
+			this.extraPayments = extraPayments;
+			this.lumpMonths = lumpMonths;
+			this.lumpAmounts = lumpAmounts;
+			this.numberOfPaymentsOut = numberOfPaymentsOut;
+			this.finalPaymentsOut = finalPaymentsOut;
+			this.interestSavedOut = interestSavedOut;
+			this.start = start;
+			this.end = end;
+		}
+
+		protected void compute() {
+			if (end - start <= chunkSize) {
+				double[] out = new double[3];
+				int lumpCount = lumpMonths == null ? 0 : 1;
+				for (int k = start; k < end; k++) {
+					float interestRate = QuoteEngine.monthlyRate(aprs[k]);
+					solve(balances[k], interestRate, payments[k], null, null, 0, 0, out);
+					double scheduledInterest = out[INTEREST];
+					solve(balances[k], interestRate, payments[k] + extraPayments[k], lumpMonths, lumpAmounts, k,
+							lumpCount, out);
+					numberOfPaymentsOut[k] = (int) out[PAYMENTS];
+					finalPaymentsOut[k] = out[FINAL_PAYMENT];
+					interestSavedOut[k] = scheduledInterest - out[INTEREST];
+				}
+				return;
+			}
+			int middle = (start + end) >>> 1;
+			invokeAll(new PayoffTask(balances, aprs, payments, extraPayments, lumpMonths, lumpAmounts,
+							numberOfPaymentsOut, finalPaymentsOut, interestSavedOut, start, middle),
+					new PayoffTask(balances, aprs, payments, extraPayments, lumpMonths, lumpAmounts,
+							numberOfPaymentsOut, finalPaymentsOut, interestSavedOut, middle, end));
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the number of lump sums, checking that the arrays are both null or have the same length.
+	//-----------------------------------------------------------------------------------------------------------------
+	private static int checkLumpSums(int[] lumpMonths, double[] lumpAmounts) {
+		if (lumpMonths == null || lumpAmounts == null) {
+			if (lumpMonths != null || lumpAmounts != null) {
+				throw new IllegalArgumentException("Lump sum months and amounts must both be given.");
+			}
+			return 0;
+		}
+		if (lumpMonths.length != lumpAmounts.length) {
+			throw new IllegalArgumentException("Lump sum months and amounts differ in length.");
+		}
+		return lumpMonths.length;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Pays off the balance with a monthly payment and the lump sums from lumpStart up to, not including,
+	// lumpStart + lumpCount, and writes the number of payments, the final payment and the interest paid to out.
+	//-----------------------------------------------------------------------------------------------------------------
+	static void solve(double loanAmount, float interestRate, double payment, int[] lumpMonths, double[] lumpAmounts,
+			int lumpStart, int lumpCount, double[] out) {
+		double rate = interestRate;
+		double logGrowth = Math.log1p(rate);
+		double balance = loanAmount;
+		double paid = 0;
+		int month = 0;
+
+		for (int j = lumpStart; j < lumpStart + lumpCount; j++) {
+			int lumpMonth = lumpMonths[j];
+			double lumpAmount = lumpAmounts[j];
+			if (lumpAmount == 0) {
+				continue;
+			}
+			if (lumpMonth < 1 || !(lumpAmount > 0)) {
+				throw new IllegalArgumentException("Invalid lump sum: " + lumpAmount + " in month " + lumpMonth);
+			}
+			// Paid off by the regular payments before the lump sum is due, and so before any later one
+			if (month + paymentsToPayOff(balance, rate, logGrowth, payment) <= lumpMonth) {
+				break;
+			}
+			balance = balanceAfter(balance, rate, logGrowth, payment, lumpMonth - month);
+			paid += (lumpMonth - month) * payment;
+			month = lumpMonth;
+			if (lumpAmount >= balance - HALF_CENT) {
+				out[PAYMENTS] = month;
+				out[FINAL_PAYMENT] = payment + balance;
+				out[INTEREST] = paid + balance - loanAmount;
+				return;
+			}
+			balance -= lumpAmount;
+			paid += lumpAmount;
+		}
+
+		if (balance <= HALF_CENT) {
+			out[PAYMENTS] = month;
+			out[FINAL_PAYMENT] = 0;
+			out[INTEREST] = paid + balance - loanAmount;
+			return;
+		}
+		double n = paymentsToPayOff(balance, rate, logGrowth, payment);
+		if (!(n >= 0 && n < Integer.MAX_VALUE - month)) {
+			out[PAYMENTS] = NEVER;
+			out[FINAL_PAYMENT] = Double.NaN;
+			out[INTEREST] = Double.POSITIVE_INFINITY;
+			return;
+		}
+
+		// floor(n) full payments, and a final payment of what is left plus a month of interest. A balance of less
+		// than half a cent left after the full payments is paid with the last of them.
+		int fullPayments = (int) n;
+		double remaining = balanceAfter(balance, rate, logGrowth, payment, fullPayments);
+		double finalPayment;
+		if (remaining <= HALF_CENT) {
+			fullPayments--;
+			finalPayment = payment + remaining;
+		}
+		else {
+			finalPayment = remaining * (1 + rate);
+		}
+		out[PAYMENTS] = month + fullPayments + 1;
+		out[FINAL_PAYMENT] = finalPayment;
+		out[INTEREST] = paid + fullPayments * payment + finalPayment - loanAmount;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the fractional number of payments that bring the balance to zero, infinite or NaN when the payment does
+	// not cover the interest. logGrowth is ln(1 + i).
+	//-----------------------------------------------------------------------------------------------------------------
+	static double paymentsToPayOff(double balance, double interestRate, double logGrowth, double payment) {
+		if (interestRate == 0.0) {
+			return balance / payment;
+		}
+		double interestShare = interestRate * balance / payment;
+		if (!(interestShare < 1)) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return -Math.log1p(-interestShare) / logGrowth;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the balance after the given number of payments: B - (P - iB) ((1 + i)^m - 1) / i, with (1 + i)^m - 1
+	// evaluated as expm1(m ln(1 + i)) so that it keeps its precision for small rates.
+	//-----------------------------------------------------------------------------------------------------------------
+	static double balanceAfter(double balance, double interestRate, double logGrowth, double payment,
+			int numberOfPayments) {
+		if (interestRate == 0.0) {
+			return balance - numberOfPayments * payment;
+		}
+		return balance - (payment - interestRate * balance) * Math.expm1(numberOfPayments * logGrowth)
+				/ interestRate;
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Reprices a whole loan book when rates change. For each loan the remaining balance is the present
+ * 					value of its current payment over its remaining term at its current APR, and the new payment
+ * 					amortizes that balance over the same remaining term at the new APR.
+ *
+ * 					The book is held in parallel primitive columns and split across a ForkJoinPool, whose work
+ * 					stealing keeps every core busy. The formulas are evaluated on primitives local to each task, so
+ * 					the tasks share no mutable state and throughput scales with the number of cores.
+ *
+ **********************************************************************************************************************
+ **/
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class PortfolioRepricer {
+	static final int DEFAULT_CHUNK_SIZE = 8192;		// loans priced by one task without splitting further
+
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Creates a repricer that uses every core.
+	//-----------------------------------------------------------------------------------------------------------------
+	public PortfolioRepricer() {
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+	}
+
+	public PortfolioRepricer(int parallelism, int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+		}
+		this.pool = new ForkJoinPool(parallelism);
+		this.chunkSize = chunkSize;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Reprices every loan. The remaining balances and new payments are written to the output columns.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void reprice(double[] payments, float[] currentAprs, int[] remainingPayments, float[] newAprs,
+			double[] balancesOut, double[] newPaymentsOut) {
+		int count = payments.length;
+		if (currentAprs.length != count || remainingPayments.length != count || newAprs.length != count
+				|| balancesOut.length != count || newPaymentsOut.length != count) {
+			throw new IllegalArgumentException("Column lengths differ.");
+		}
+		pool.invoke(new RepriceTask(payments, currentAprs, remainingPayments, newAprs, 0, balancesOut,
+				newPaymentsOut, 0, count));
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Reprices every loan at a single new APR.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void reprice(double[] payments, float[] currentAprs, int[] remainingPayments, float newApr,
+			double[] balancesOut, double[] newPaymentsOut) {
+		int count = payments.length;
+		if (currentAprs.length != count || remainingPayments.length != count || balancesOut.length != count
+				|| newPaymentsOut.length != count) {
+			throw new IllegalArgumentException("Column lengths differ.");
+		}
+		pool.invoke(new RepriceTask(payments, currentAprs, remainingPayments, null, newApr, balancesOut,
+				newPaymentsOut, 0, count));
+	}
+
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Stops the pool's worker threads.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	// Prices the loans from start up to, not including, end, splitting in half until a chunk is small enough
+	private final class RepriceTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] payments;
+		private final float[] currentAprs;
+		private final int[] remainingPayments;
+		private final float[] newAprs;				// null when every loan is repriced at newApr
+		private final float newApr;
+		private final double[] balancesOut;
+		private final double[] newPaymentsOut;
+		private final int start;
+		private final int end;
+
+		RepriceTask(double[] payments, float[] currentAprs, int[] remainingPayments, float[] newAprs, float newApr,
+				double[] balancesOut, double[] newPaymentsOut, int start, int end) {
+			this.payments = payments;
+			this.currentAprs = currentAprs;
+			this.remainingPayments = remainingPayments;
+			this.newAprs = newAprs;
+			this.newApr = newApr;
+			this.balancesOut = balancesOut;
+			this.newPaymentsOut = newPaymentsOut;
+			this.start = start;
+			this.end = end;
+		}
+
+		protected void compute() {
+			if (end - start <= chunkSize) {
+				for (int k = start; k < end; k++) {
+					int n = remainingPayments[k];
+					double balance = QuoteEngine.loanAmount(QuoteEngine.monthlyRate(currentAprs[k]), n, payments[k]);
+					float apr = newAprs != null ? newAprs[k] : newApr;
+					balancesOut[k] = balance;
+					newPaymentsOut[k] = QuoteEngine.paymentAmount(balance, QuoteEngine.monthlyRate(apr), n);
+				}
+				return;
+			}
+			int middle = (start + end) >>> 1;
+			invokeAll(new RepriceTask(payments, currentAprs, remainingPayments, newAprs, newApr, balancesOut,
+							newPaymentsOut, start, middle),
+					new RepriceTask(payments, currentAprs, remainingPayments, newAprs, newApr, balancesOut,
+							newPaymentsOut, middle, end));
+		}
+	}
+}
@@ -0,0 +1,314 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Stateless, thread-safe version of the FinanceCalculator formulas. Every solve takes its inputs as
+ * 					arguments and returns an immutable QuoteResult, so a single QuoteEngine can be shared by any
+ * 					number of threads without locking. The only object allocated per call is the result.
+ *
+ * 				PV = (PMT/i) [1 - (1 / (1 + i)^n], where PV is the loan amount, PMT is the monthly payment, i is the
+ * 				monthly interest rate in decimal form, and n is the number of months (number of payments).
+ *
+ **********************************************************************************************************************
+ **/
+
+public final class QuoteEngine {
+
+	// Represents a very small number near zero to be used with the Newton Raphson solve
+	static final double EPSILON = 0.00001;
+
+	// Step size at which the bounded interest rate solve stops, and the most steps it may take
+	static final double BOUNDED_TOLERANCE = 1e-10;
+	static final int MAX_BOUNDED_ITERATIONS = 64;
+
+	// Rates closer to zero than this are solved with the linear expansion of f(x), which avoids 0 / 0 at x = 0
+	static final double NEAR_ZERO_RATE = 1e-7;
+
+	public QuoteEngine() {} // default constructor
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Converts an APR percentage (e.g. 4.5 for 4.5%) to the monthly interest rate in decimal form.
+	// The rate is kept as a float, and (1 + i) is evaluated in float arithmetic, so results match FinanceCalculator.
+	//-----------------------------------------------------------------------------------------------------------------
+	static float monthlyRate(float apr) {
+		return (apr / 100) / 12;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates loan amount (PV)
+	//-----------------------------------------------------------------------------------------------------------------
+	public QuoteResult presentValue(float apr, int numberOfPayments, double paymentAmount) {
+		long startNanos = QuoteMetrics.ENABLED ? System.nanoTime() : 0;
+		float interestRate = monthlyRate(apr);
+
+		double loanAmount = loanAmount(interestRate, numberOfPayments, paymentAmount);
+		return recorded(new QuoteResult(SolveType.LOAN_AMOUNT, loanAmount, interestRate, numberOfPayments,
+				paymentAmount, paymentAmount, false, 0), startNanos);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates interest rate
+	// Requires use of Newton Raphson Method to solve for interest rate
+	// Initial guess = 2(n * PMT - PV) / n * PV
+	//-----------------------------------------------------------------------------------------------------------------
+	public QuoteResult interestRate(double loanAmount, int numberOfPayments, double paymentAmount) {
+		return interestRate(loanAmount, numberOfPayments, paymentAmount, Integer.MAX_VALUE);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Newton Raphson interest rate solve that gives up after maxIterations steps. A result that did not converge
+	// reports an iteration count above maxIterations.
+	//-----------------------------------------------------------------------------------------------------------------
+	QuoteResult interestRate(double loanAmount, int numberOfPayments, double paymentAmount, int maxIterations) {
+		long startNanos = QuoteMetrics.ENABLED ? System.nanoTime() : 0;
+		double x = (2 * (numberOfPayments * paymentAmount - loanAmount) / (numberOfPayments * loanAmount));
+		int iterations = 0;
+
+		double a = function(loanAmount, numberOfPayments, paymentAmount, x)
+				/ derivativeFunction(loanAmount, numberOfPayments, x);
+		while (Math.abs(a) >= EPSILON) {
+			if (iterations++ == maxIterations) {
+				break;
+			}
+			a = function(loanAmount, numberOfPayments, paymentAmount, x)
+					/ derivativeFunction(loanAmount, numberOfPayments, x);
+
+			// x(i+1) = x(i) - f(x) / f'(x)
+			x = x - a;
+		}
+
+		if (QuoteMetrics.ENABLED && iterations > maxIterations) {
+			QuoteMetrics.recordNotConverged();
+		}
+		float interestRate = (float) (Math.round(x * 100000.0) / 100000.0);
+		return recorded(new QuoteResult(SolveType.INTEREST_RATE, loanAmount, interestRate, numberOfPayments,
+				paymentAmount, paymentAmount, false, iterations), startNanos);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates interest rate with a bounded, bracketed solve that always terminates
+	// Uses the same initial guess as the Newton Raphson solve. Each step takes a Newton step when it stays inside the
+	// bracket that holds the root, and bisects the bracket otherwise, so the solve converges for any payment (rates
+	// below 0% are returned when the payment is less than PV / n) and never takes more than MAX_BOUNDED_ITERATIONS
+	// steps. (1 + x)^n is computed once per step. Returns NaN for a loan amount, payment or term that is not positive.
+	// A result that did not converge within the steps reports MAX_BOUNDED_ITERATIONS + 1 iterations, like the capped
+	// Newton Raphson solve.
+	//-----------------------------------------------------------------------------------------------------------------
+	public QuoteResult boundedInterestRate(double loanAmount, int numberOfPayments, double paymentAmount) {
+		double initialGuessForX = (2 * (numberOfPayments * paymentAmount - loanAmount) /
+				(numberOfPayments * loanAmount));
+		return boundedInterestRate(loanAmount, numberOfPayments, paymentAmount, initialGuessForX);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Bounded interest rate solve starting from the given monthly rate, such as the root of a previous solve.
+	//-----------------------------------------------------------------------------------------------------------------
+	QuoteResult boundedInterestRate(double loanAmount, int numberOfPayments, double paymentAmount,
+			double initialGuessForX) {
+		return boundedInterestRate(loanAmount, numberOfPayments, paymentAmount, initialGuessForX, null);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Bounded interest rate solve that also writes the root before rounding to rootOut[0], when rootOut is not null,
+	// so a later solve can start from it.
+	//-----------------------------------------------------------------------------------------------------------------
+	QuoteResult boundedInterestRate(double loanAmount, int numberOfPayments, double paymentAmount,
+			double initialGuessForX, double[] rootOut) {
+		long startNanos = QuoteMetrics.ENABLED ? System.nanoTime() : 0;
+		if (!(loanAmount > 0) || !(paymentAmount > 0) || numberOfPayments <= 0) {
+			return recorded(new QuoteResult(SolveType.INTEREST_RATE, loanAmount, Double.NaN, numberOfPayments,
+					paymentAmount, paymentAmount, false, 0), startNanos);
+		}
+
+		// f(x) is increasing on (-1, infinity), is negative as x approaches -1, and is positive at PMT / PV
+		double low = -1 + BOUNDED_TOLERANCE;
+		double high = paymentAmount / loanAmount;
+		double x = (initialGuessForX > low && initialGuessForX < high) ? initialGuessForX : (low + high) / 2;
+		int iterations = 0;
+		boolean converged = false;
+
+		while (iterations < MAX_BOUNDED_ITERATIONS) {
+			iterations++;
+			double f;
+			double slope;
+			if (Math.abs(x) < NEAR_ZERO_RATE) {
+				// f(x) = PV / n + PV (n + 1) x / 2n - PMT near x = 0
+				slope = loanAmount * (numberOfPayments + 1) / (2.0 * numberOfPayments);
+				f = loanAmount / numberOfPayments + slope * x - paymentAmount;
+			}
+			else {
+				double growth = Math.pow(1 + x, numberOfPayments);
+				f = (loanAmount * x * growth) / (growth - 1) - paymentAmount;
+				slope = loanAmount * growth * ((growth - 1) - x * numberOfPayments / (1 + x))
+						/ ((growth - 1) * (growth - 1));
+			}
+			if (f == 0) {
+				converged = true;
+				break;
+			}
+			if (f < 0) {
+				low = x;
+			}
+			else {
+				high = x;
+			}
+			double next = x - f / slope;
+
+			// Bisect when the Newton step is undefined or leaves the bracket
+			if (!(next > low && next < high)) {
+				next = (low + high) / 2;
+			}
+			double step = Math.abs(next - x);
+			x = next;
+			if (step < BOUNDED_TOLERANCE || high - low < BOUNDED_TOLERANCE) {
+				converged = true;
+				break;
+			}
+		}
+
+		if (!converged) {
+			iterations++;
+			if (QuoteMetrics.ENABLED) {
+				QuoteMetrics.recordNotConverged();
+			}
+		}
+		if (rootOut != null) {
+			rootOut[0] = x;
+		}
+		float interestRate = (float) (Math.round(x * 100000.0) / 100000.0);
+		return recorded(new QuoteResult(SolveType.INTEREST_RATE, loanAmount, interestRate, numberOfPayments,
+				paymentAmount, paymentAmount, false, iterations), startNanos);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates number of months/payments (n)
+	//-----------------------------------------------------------------------------------------------------------------
+	public QuoteResult numberOfPayments(double loanAmount, float apr, double paymentAmount) {
+		long startNanos = QuoteMetrics.ENABLED ? System.nanoTime() : 0;
+		float interestRate = monthlyRate(apr);
+		int numberOfPayments;
+
+		if (interestRate == 0.0) {
+			numberOfPayments = (int) (loanAmount / paymentAmount);
+		}
+		else {
+			numberOfPayments = (int) (Math.log((paymentAmount / interestRate) /
+					((paymentAmount / interestRate) - loanAmount)) / Math.log(1.0 + interestRate));
+		}
+		return recorded(new QuoteResult(SolveType.NUMBER_OF_PAYMENTS, loanAmount, interestRate, numberOfPayments,
+				paymentAmount, paymentAmount, false, 0), startNanos);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates monthly payment amount (PMT)
+	// For 0% apr scenarios where pennies are lost due to rounding, the lost pennies are added to the first payment
+	// and the result carries the regular payment for the remaining months.
+	//-----------------------------------------------------------------------------------------------------------------
+	public QuoteResult payment(double loanAmount, float apr, int numberOfPayments) {
+		long startNanos = QuoteMetrics.ENABLED ? System.nanoTime() : 0;
+		float interestRate = monthlyRate(apr);
+
+		if (interestRate == 0.0) {
+			if ((loanAmount % numberOfPayments) == 0) {
+				double paymentAmount = loanAmount / numberOfPayments;
+				return recorded(new QuoteResult(SolveType.PAYMENT, loanAmount, interestRate, numberOfPayments,
+						paymentAmount, paymentAmount, false, 0), startNanos);
+			}
+			else {
+				float remainder = (float) (loanAmount % numberOfPayments);
+				int tempRemainder = (int) ((remainder * 100) % numberOfPayments);
+				int hold = (int) ((remainder * 100) / numberOfPayments);
+
+				double payment = ((loanAmount - remainder) / numberOfPayments) + (double) hold / 100;
+				double finalPayment = payment + (double) tempRemainder / 100;
+				return recorded(new QuoteResult(SolveType.PAYMENT, loanAmount, interestRate, numberOfPayments,
+						finalPayment, payment, true, 0), startNanos);
+			}
+		}
+		else {
+			double paymentAmount = paymentAmount(loanAmount, interestRate, numberOfPayments);
+			return recorded(new QuoteResult(SolveType.PAYMENT, loanAmount, interestRate, numberOfPayments,
+					paymentAmount, paymentAmount, false, 0), startNanos);
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Records a solve with QuoteMetrics, when metrics are enabled, and returns its result.
+	//-----------------------------------------------------------------------------------------------------------------
+	private static QuoteResult recorded(QuoteResult result, long startNanos) {
+		if (QuoteMetrics.ENABLED) {
+			QuoteMetrics.record(result, startNanos);
+		}
+		return result;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Loan amount (PV) for a monthly interest rate, evaluated without creating a result. Shared by the engines that
+	// price many loans, so every one applies the same 0% rule and evaluates (1 + i) in float like presentValue.
+	//-----------------------------------------------------------------------------------------------------------------
+	static double loanAmount(float interestRate, int numberOfPayments, double paymentAmount) {
+		if (interestRate == 0.0) {
+			return numberOfPayments * paymentAmount;
+		}
+		return (paymentAmount / interestRate) * (1 - (1 / Math.pow((1 + interestRate), numberOfPayments)));
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Monthly payment amount (PMT) for a monthly interest rate, evaluated without creating a result. A 0% loan
+	// returns its first payment, which includes any pennies lost due to rounding, like payment.
+	//-----------------------------------------------------------------------------------------------------------------
+	static double paymentAmount(double loanAmount, float interestRate, int numberOfPayments) {
+		if (interestRate == 0.0) {
+			return zeroRatePayment(loanAmount, numberOfPayments);
+		}
+		double growth = Math.pow((1 + interestRate), numberOfPayments);
+		return (loanAmount * interestRate * growth) / (growth - 1);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Monthly payment amount (PMT) for a monthly interest rate in double precision, for simulated rates that are not
+	// the float rates of the menu. Amounts are not rounded to the cent, so a 0% loan pays the same every month.
+	//-----------------------------------------------------------------------------------------------------------------
+	static double paymentAmount(double loanAmount, double interestRate, int numberOfPayments) {
+		if (interestRate == 0.0) {
+			return loanAmount / numberOfPayments;
+		}
+		double growth = Math.pow(1 + interestRate, numberOfPayments);
+		return (loanAmount * interestRate * growth) / (growth - 1);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the first payment of a 0% apr loan, which includes any pennies lost due to rounding. Matches the
+	// payment amount returned by payment(loanAmount, 0, numberOfPayments) without allocating a result.
+	//-----------------------------------------------------------------------------------------------------------------
+	static double zeroRatePayment(double loanAmount, int numberOfPayments) {
+		if ((loanAmount % numberOfPayments) == 0) {
+			return loanAmount / numberOfPayments;
+		}
+		float remainder = (float) (loanAmount % numberOfPayments);
+		int tempRemainder = (int) ((remainder * 100) % numberOfPayments);
+		int hold = (int) ((remainder * 100) / numberOfPayments);
+
+		double payment = ((loanAmount - remainder) / numberOfPayments) + (double) hold / 100;
+		return payment + (double) tempRemainder / 100;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// f(x)
+	//-----------------------------------------------------------------------------------------------------------------
+	private static double function(double loanAmount, int numberOfPayments, double paymentAmount, double x) {
+		return ((loanAmount * x * Math.pow(1 + x, numberOfPayments))
+				/ (Math.pow(1 + x, numberOfPayments) - 1)) - paymentAmount;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// f'(x)
+	//-----------------------------------------------------------------------------------------------------------------
+	private static double derivativeFunction(double loanAmount, int numberOfPayments, double x) {
+		return (loanAmount * Math.pow(x + 1, numberOfPayments - 1)
+				* (x * Math.pow(x + 1, numberOfPayments) + Math.pow(x + 1, numberOfPayments)
+				- (numberOfPayments * x) - x - 1)) / ((Math.pow(x + 1, numberOfPayments) - 1)
+						* (Math.pow(x + 1, numberOfPayments) - 1));
+	}
+}
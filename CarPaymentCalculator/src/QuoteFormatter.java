@@ -0,0 +1,159 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Thread-safe replacement for the DecimalFormat objects used to display principal, monthly amount,
+ * 					APR and number of payments values. Output matches DecimalFormat with the same pattern character
+ * 					for character, including its half-even rounding of the exact double value, but digits are written
+ * 					straight into a caller supplied StringBuilder without creating intermediate objects.
+ *
+ * 					Values that would need more than 15 significant digits, and NaN or infinite values, are passed to
+ * 					a per-thread DecimalFormat, so every double is formatted the same as before. That DecimalFormat is
+ * 					created on first use, so most runs never load the java.text formatting classes.
+ *
+ * 					Output is pinned to US symbols ('.' decimal point, ',' grouping), the same as DecimalFormat in a
+ * 					US default locale, whatever the default locale of the JVM. The fallback DecimalFormat uses
+ * 					Locale.US symbols too, so fast path and fallback values always agree.
+ *
+ **********************************************************************************************************************
+ **/
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+public final class QuoteFormatter {
+	// DecimalFormat rounds the shortest decimal representation of a double, which matches rounding the exact value
+	// only while the rounded result has at most 15 significant digits
+	private static final double MAX_FAST_DIGITS = 1e15;
+
+	// Splits a double into two halves whose products are exact (Veltkamp splitting)
+	private static final double SPLITTER = 134217729.0;		// 2^27 + 1
+
+	private static final long[] POWERS_OF_TEN = { 1, 10, 100, 1000, 10000 };
+
+	public static final QuoteFormatter PRINCIPAL = new QuoteFormatter("$###,###0.00", "$", "", 1, 2, 4, 1);
+	public static final QuoteFormatter MONTHLY_AMOUNT = new QuoteFormatter("$###,###.00", "$", "", 1, 2, 3, 0);
+	public static final QuoteFormatter PERCENT = new QuoteFormatter("0.0000%", "", "%", 100, 4, 0, 1);
+	public static final QuoteFormatter COUNT = new QuoteFormatter("###", "", "", 1, 0, 0, 0);
+
+	private final String pattern;
+	private final String prefix;
+	private final String suffix;
+	private final int multiplier;
+	private final int fractionDigits;
+	private final int groupingSize;			// 0 for no grouping
+	private final int minimumIntegerDigits;
+	private final double maxFastValue;		// largest value, after the multiplier, rounded without DecimalFormat
+	private final ThreadLocal<DecimalFormat> fallback;
+
+	private QuoteFormatter(String pattern, String prefix, String suffix, int multiplier, int fractionDigits,
+			int groupingSize, int minimumIntegerDigits) {
+		this.pattern = pattern;
+		this.prefix = prefix;
+		this.suffix = suffix;
+		this.multiplier = multiplier;
+		this.fractionDigits = fractionDigits;
+		this.groupingSize = groupingSize;
+		this.minimumIntegerDigits = minimumIntegerDigits;
+		this.maxFastValue = MAX_FAST_DIGITS / POWERS_OF_TEN[fractionDigits];
+		this.fallback = new ThreadLocal<DecimalFormat>() {
+			// An anonymous class rather than a lambda, so no lambda class is generated at startup
+			protected DecimalFormat initialValue() {
+				return new DecimalFormat(pattern, DecimalFormatSymbols.getInstance(Locale.US));
+			}
+		};
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the formatted value as a String, the same as DecimalFormat.format with Locale.US symbols.
+	//-----------------------------------------------------------------------------------------------------------------
+	public String format(double value) {
+		return append(new StringBuilder(24), value).toString();
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Appends the formatted value to the builder and returns the builder.
+	//-----------------------------------------------------------------------------------------------------------------
+	public StringBuilder append(StringBuilder builder, double value) {
+		double scaled = value * multiplier;
+		if (!(Math.abs(scaled) < maxFastValue)) {
+			return builder.append(fallback.get().format(value));
+		}
+
+		boolean negative = scaled < 0 || (scaled == 0 && 1 / scaled < 0);
+		long units = roundHalfEven(Math.abs(scaled), POWERS_OF_TEN[fractionDigits]);
+		long integerPart = units / POWERS_OF_TEN[fractionDigits];
+		long fractionPart = units % POWERS_OF_TEN[fractionDigits];
+
+		if (negative) {
+			builder.append('-');
+		}
+		builder.append(prefix);
+		if (integerPart > 0 || minimumIntegerDigits > 0 || fractionDigits == 0) {
+			appendGrouped(builder, integerPart);
+		}
+		if (fractionDigits > 0) {
+			builder.append('.');
+			for (long divisor = POWERS_OF_TEN[fractionDigits] / 10; divisor > 0; divisor /= 10) {
+				builder.append((char) ('0' + (fractionPart / divisor) % 10));
+			}
+		}
+		return builder.append(suffix);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Appends the digits of a value that is not negative, with a grouping separator every groupingSize digits.
+	//-----------------------------------------------------------------------------------------------------------------
+	private void appendGrouped(StringBuilder builder, long value) {
+		int digits = 1;
+		long divisor = 1;
+		while (divisor <= value / 10) {
+			divisor *= 10;
+			digits++;
+		}
+		for (; divisor > 0; divisor /= 10) {
+			builder.append((char) ('0' + (value / divisor) % 10));
+			digits--;
+			if (groupingSize > 0 && digits > 0 && digits % groupingSize == 0) {
+				builder.append(',');
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns value * scale rounded half-even to a whole number, where value * scale is the exact product rather than
+	// the rounded double. value must be finite, not negative, and small enough that value * scale is below 2^52.
+	//-----------------------------------------------------------------------------------------------------------------
+	static long roundHalfEven(double value, long scale) {
+		double product = value * scale;
+		double whole = Math.floor(product);
+
+		// The exact product is product + error; compare it with whole + 0.5 without rounding
+		double error = productError(value, scale, product);
+		double difference = ((product - whole) - 0.5) + error;
+		long result = (long) whole;
+		if (difference > 0 || (difference == 0 && (result & 1) != 0)) {
+			result++;
+		}
+		return result;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the rounding error of product = a * b, so that a * b = product + error exactly (Dekker's TwoProduct).
+	//-----------------------------------------------------------------------------------------------------------------
+	private static double productError(double a, double b, double product) {
+		double aSplit = SPLITTER * a;
+		double aHigh = aSplit - (aSplit - a);
+		double aLow = a - aHigh;
+		double bSplit = SPLITTER * b;
+		double bHigh = bSplit - (bSplit - b);
+		double bLow = b - bHigh;
+		return ((aHigh * bHigh - product) + aHigh * bLow + aLow * bHigh) + aLow * bLow;
+	}
+
+	public String toPattern() {
+		return pattern;
+	}
+}
@@ -0,0 +1,295 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Built-in metrics for the QuoteEngine solves, which every FinanceCalculator calculate() overload,
+ * 					the quote server and the batch mode go through. Records the calls and latency of each solve type,
+ * 					the iterations of the interest rate solves and any that did not converge, how often a 0% apr
+ * 					monthly amount needed lost pennies added to the first payment, and AnnuityFactorCache hit rates.
+ *
+ * 					Metrics are off unless the JVM is started with -Dquote.metrics=true. ENABLED is a static final
+ * 					constant, so when it is false the JIT removes the recording code and the solves cost the same as
+ * 					before. When enabled, the metrics are published over JMX as CarPaymentCalculator:type=QuoteMetrics,
+ * 					and with -Dquote.metrics.dump=<file> a report is appended to that file every
+ * 					quote.metrics.dumpSeconds seconds (default 60). Recording is lock-free and does not allocate.
+ *
+ **********************************************************************************************************************
+ **/
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public final class QuoteMetrics implements QuoteMetricsMXBean {
+	public static final boolean ENABLED = Boolean.getBoolean("quote.metrics");
+	static final String OBJECT_NAME = "CarPaymentCalculator:type=QuoteMetrics";
+	static final long DEFAULT_DUMP_SECONDS = 60;
+
+	private static final SolveType[] SOLVE_TYPES = SolveType.values();
+
+	// Latency of each solve type, indexed by ordinal. The count of each histogram is the number of calls.
+	private static final LatencyHistogram[] latencies = new LatencyHistogram[SOLVE_TYPES.length];
+
+	private static final LatencyHistogram iterations = new LatencyHistogram();
+	private static final LongAdder notConverged = new LongAdder();
+	private static final LongAdder zeroRatePayments = new LongAdder();
+	private static final LongAdder pennyAdjustments = new LongAdder();
+	private static final LongAdder cacheHits = new LongAdder();
+	private static final LongAdder cacheMisses = new LongAdder();
+	private static final LongAdder cacheBypasses = new LongAdder();
+
+	private static final QuoteMetrics INSTANCE = new QuoteMetrics();
+
+	static {
+		for (int k = 0; k < latencies.length; k++) {
+			latencies[k] = new LatencyHistogram();
+		}
+		if (ENABLED) {
+			register();
+			scheduleDump();
+		}
+	}
+
+	private QuoteMetrics() {} // only INSTANCE is published
+
+	public static QuoteMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calls and latency of one solve type, published over JMX as composite data
+	//-----------------------------------------------------------------------------------------------------------------
+	public static final class SolveStatistics {
+		private final String solveType;
+		private final long calls;
+		private final double meanNanos;
+		private final long p50Nanos;
+		private final long p99Nanos;
+		private final long p999Nanos;
+		private final long maxNanos;
+
+		SolveStatistics(SolveType solveType, LatencyHistogram latency) {
+			this.solveType = solveType.name();
+			this.calls = latency.getCount();
+			this.meanNanos = latency.getMean();
+			this.p50Nanos = latency.getValueAtPercentile(50);
+			this.p99Nanos = latency.getValueAtPercentile(99);
+			this.p999Nanos = latency.getValueAtPercentile(99.9);
+			this.maxNanos = latency.getMax();
+		}
+
+		public String getSolveType() {
+			return solveType;
+		}
+
+		public long getCalls() {
+			return calls;
+		}
+
+		public double getMeanNanos() {
+			return meanNanos;
+		}
+
+		public long getP50Nanos() {
+			return p50Nanos;
+		}
+
+		public long getP99Nanos() {
+			return p99Nanos;
+		}
+
+		public long getP999Nanos() {
+			return p999Nanos;
+		}
+
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+
+		public String toString() {
+			return String.format("%-20s calls=%d mean=%.0fns p50=%dns p99=%dns p99.9=%dns max=%dns", solveType,
+					calls, meanNanos, p50Nanos, p99Nanos, p999Nanos, maxNanos);
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Records a finished solve that started at startNanos (System.nanoTime). Callers check ENABLED first.
+	//-----------------------------------------------------------------------------------------------------------------
+	static void record(QuoteResult result, long startNanos) {
+		SolveType solveType = result.getSolveType();
+		latencies[solveType.ordinal()].record(System.nanoTime() - startNanos);
+
+		if (solveType == SolveType.INTEREST_RATE) {
+			iterations.record(result.getIterations());
+		}
+		else if (solveType == SolveType.PAYMENT && result.getInterestRate() == 0.0) {
+			zeroRatePayments.increment();
+			if (result.isPennyAdjusted()) {
+				pennyAdjustments.increment();
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Records an interest rate solve that stopped at its iteration limit without converging.
+	//-----------------------------------------------------------------------------------------------------------------
+	static void recordNotConverged() {
+		notConverged.increment();
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Record the outcome of an AnnuityFactorCache lookup
+	//-----------------------------------------------------------------------------------------------------------------
+	static void recordCacheHit() {
+		cacheHits.increment();
+	}
+
+	static void recordCacheMiss() {
+		cacheMisses.increment();
+	}
+
+	static void recordCacheBypass() {
+		cacheBypasses.increment();
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Registers the metrics with the platform MBean server.
+	//-----------------------------------------------------------------------------------------------------------------
+	private static void register() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+		}
+		catch (JMException e) {
+			System.err.println(" Unable to register " + OBJECT_NAME + ": " + e);
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Starts appending a report to the quote.metrics.dump file, if one is set, on a daemon thread.
+	//-----------------------------------------------------------------------------------------------------------------
+	private static void scheduleDump() {
+		String file = System.getProperty("quote.metrics.dump");
+		long seconds = Long.getLong("quote.metrics.dumpSeconds", DEFAULT_DUMP_SECONDS);
+		if (file == null || seconds <= 0) {
+			return;
+		}
+		ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "quote-metrics-dump");
+			thread.setDaemon(true);
+			return thread;
+		});
+		dumper.scheduleAtFixedRate(() -> {
+			try {
+				Files.write(Paths.get(file), (Instant.now() + "\n" + INSTANCE.report() + "\n")
+						.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+			}
+			catch (IOException e) {
+				System.err.println(" Unable to write quote metrics to " + file + ": " + e);
+			}
+		}, seconds, seconds, TimeUnit.SECONDS);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// QuoteMetricsMXBean attributes
+	//-----------------------------------------------------------------------------------------------------------------
+	public List<SolveStatistics> getSolves() {
+		List<SolveStatistics> solves = new ArrayList<SolveStatistics>();
+		for (SolveType solveType : SOLVE_TYPES) {
+			solves.add(new SolveStatistics(solveType, latencies[solveType.ordinal()]));
+		}
+		return solves;
+	}
+
+	public double getMeanIterations() {
+		return iterations.getMean();
+	}
+
+	public long getP99Iterations() {
+		return iterations.getValueAtPercentile(99);
+	}
+
+	public long getMaxIterations() {
+		return iterations.getMax();
+	}
+
+	public long getNotConverged() {
+		return notConverged.sum();
+	}
+
+	public long getZeroRatePayments() {
+		return zeroRatePayments.sum();
+	}
+
+	public long getPennyAdjustments() {
+		return pennyAdjustments.sum();
+	}
+
+	public double getPennyAdjustmentRate() {
+		long payments = getZeroRatePayments();
+		return payments == 0 ? 0 : (double) getPennyAdjustments() / payments;
+	}
+
+	public long getCacheHits() {
+		return cacheHits.sum();
+	}
+
+	public long getCacheMisses() {
+		return cacheMisses.sum();
+	}
+
+	public long getCacheBypasses() {
+		return cacheBypasses.sum();
+	}
+
+	public double getCacheHitRate() {
+		long lookups = getCacheHits() + getCacheMisses();
+		return lookups == 0 ? 0 : (double) getCacheHits() / lookups;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns every metric as readable text, one line per solve type followed by the solve and cache counters.
+	//-----------------------------------------------------------------------------------------------------------------
+	public String report() {
+		StringBuilder report = new StringBuilder();
+		for (SolveStatistics solve : getSolves()) {
+			report.append(solve).append('\n');
+		}
+		report.append(String.format("interest rate solves: mean iterations=%.2f p99=%d max=%d not converged=%d%n",
+				getMeanIterations(), getP99Iterations(), getMaxIterations(), getNotConverged()));
+		report.append(String.format("0%% apr payments=%d penny adjusted=%d (%.2f%%)%n", getZeroRatePayments(),
+				getPennyAdjustments(), getPennyAdjustmentRate() * 100));
+		report.append(String.format("annuity factor cache: hits=%d misses=%d bypasses=%d hit rate=%.2f%%",
+				getCacheHits(), getCacheMisses(), getCacheBypasses(), getCacheHitRate() * 100));
+		return report.toString();
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Clears every metric.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void reset() {
+		for (LatencyHistogram latency : latencies) {
+			latency.reset();
+		}
+		iterations.reset();
+		notConverged.reset();
+		zeroRatePayments.reset();
+		pennyAdjustments.reset();
+		cacheHits.reset();
+		cacheMisses.reset();
+		cacheBypasses.reset();
+	}
+}
@@ -0,0 +1,37 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	JMX management interface of QuoteMetrics, registered as CarPaymentCalculator:type=QuoteMetrics
+ * 					when metrics are enabled. Latencies are in nanoseconds.
+ *
+ **********************************************************************************************************************
+ **/
+
+import java.util.List;
+
+public interface QuoteMetricsMXBean {
+	// Calls and latency of each solve type
+	List<QuoteMetrics.SolveStatistics> getSolves();
+
+	// Interest rate solves (Newton Raphson and bounded)
+	double getMeanIterations();
+	long getP99Iterations();
+	long getMaxIterations();
+	long getNotConverged();
+
+	// Monthly amount solves at 0% apr, and how many needed lost pennies added to the first payment
+	long getZeroRatePayments();
+	long getPennyAdjustments();
+	double getPennyAdjustmentRate();
+
+	// AnnuityFactorCache lookups across every cache
+	long getCacheHits();
+	long getCacheMisses();
+	long getCacheBypasses();
+	double getCacheHitRate();
+
+	String report();
+	void reset();
+}
@@ -0,0 +1,75 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Immutable result of a single QuoteEngine calculation. Holds the four loan values (one of which was
+ * 					solved for), along with the extra figures the solves produce: the regular payment for 0% apr
+ * 					penny loss scenarios and the iteration count of the interest rate solve.
+ *
+ **********************************************************************************************************************
+ **/
+
+public final class QuoteResult {
+	private final SolveType solveType;
+	private final double loanAmount;
+	private final double interestRate;		// monthly interest rate in decimal form
+	private final int numberOfPayments;
+	private final double paymentAmount;		// first payment when pennies are lost due to rounding
+	private final double regularPayment;	// payment amount for every payment after the first
+	private final boolean pennyAdjusted;
+	private final int iterations;
+
+	QuoteResult(SolveType solveType, double loanAmount, double interestRate, int numberOfPayments,
+			double paymentAmount, double regularPayment, boolean pennyAdjusted, int iterations) {
+		this.solveType = solveType;
+		this.loanAmount = loanAmount;
+		this.interestRate = interestRate;
+		this.numberOfPayments = numberOfPayments;
+		this.paymentAmount = paymentAmount;
+		this.regularPayment = regularPayment;
+		this.pennyAdjusted = pennyAdjusted;
+		this.iterations = iterations;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Accessors for the result values
+	//-----------------------------------------------------------------------------------------------------------------
+	public SolveType getSolveType() {
+		return solveType;
+	}
+
+	public double getLoanAmount() {
+		return loanAmount;
+	}
+
+	public double getInterestRate() {
+		return interestRate;
+	}
+
+	public int getNumberOfPayments() {
+		return numberOfPayments;
+	}
+
+	public double getPaymentAmount() {
+		return paymentAmount;
+	}
+
+	public double getRegularPayment() {
+		return regularPayment;
+	}
+
+	public boolean isPennyAdjusted() {
+		return pennyAdjusted;
+	}
+
+	public int getIterations() {
+		return iterations;
+	}
+
+	public String toString() {
+		return solveType + " [loanAmount=" + loanAmount + ", interestRate=" + interestRate + ", numberOfPayments="
+				+ numberOfPayments + ", paymentAmount=" + paymentAmount + ", regularPayment=" + regularPayment
+				+ ", iterations=" + iterations + "]";
+	}
+}
@@ -0,0 +1,277 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Headless front end to the loan calculations. Serves the four solves over local HTTP with JSON
+ * 					responses, as an alternative to the interactive CalculatorMenu:
+ *
+ * 						GET /payment?principal=25000&apr=4.9&months=60
+ * 						GET /apr?principal=25000&months=60&payment=470.64
+ * 						GET /months?principal=25000&apr=4.9&payment=470.64
+ * 						GET /principal?apr=4.9&months=60&payment=470.64
+ *
+ * 					Every request is served from one shared QuoteEngine. Requests run on virtual threads when the JVM
+ * 					supports them (Java 21 and later) and on a pool of one thread per core otherwise. Connections are
+ * 					kept alive, and requests pipelined on a connection are answered in order. The APR is solved with
+ * 					the bounded solve, so no input can hold a request thread. Parameter values are URL-decoded, and a
+ * 					request that is missing a value, gives a zero principal or payment, or gives a payment that
+ * 					never pays the loan off is answered with 400 and an error message.
+ *
+ * 					Latency targets, measured on loopback with keep-alive connections: p50 under 100 microseconds
+ * 					and p99 under 1 millisecond.
+ *
+ **********************************************************************************************************************
+ **/
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class QuoteServer {
+	static final int DEFAULT_PORT = 8080;
+
+	private final QuoteEngine engine = new QuoteEngine();
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Creates a server bound to localhost on the given port. The JDK server reads TCP_NODELAY from the JVM-wide
+	// sun.net.httpserver.nodelay property, which main sets; an embedding application should set it before creating
+	// the server, or small responses wait on delayed ACKs.
+	//-----------------------------------------------------------------------------------------------------------------
+	public QuoteServer(int port) throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+		this.executor = newExecutor();
+		server.setExecutor(executor);
+		server.createContext("/payment", this::handle);
+		server.createContext("/apr", this::handle);
+		server.createContext("/months", this::handle);
+		server.createContext("/principal", this::handle);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Starts the server on the given port and serves requests until the JVM exits.
+	//-----------------------------------------------------------------------------------------------------------------
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		// Small responses are written in two parts, so without TCP_NODELAY each one waits on a delayed ACK
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+		QuoteServer quoteServer = new QuoteServer(port);
+		quoteServer.start();
+		System.out.println(" Finance Calculator 1.0 quote server listening on http://localhost:" + port + "/");
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	public void stop() {
+		server.stop(0);
+		executor.shutdown();
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns a virtual thread per task executor when the JVM has one, or a pool of one thread per core.
+	//-----------------------------------------------------------------------------------------------------------------
+	private static ExecutorService newExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException e) {
+			return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Solves for the value named by the request path and writes the result as JSON.
+	//-----------------------------------------------------------------------------------------------------------------
+	private void handle(HttpExchange exchange) throws IOException {
+		String path = exchange.getRequestURI().getPath();
+		String query = exchange.getRequestURI().getRawQuery();
+		int status = 200;
+		String body;
+
+		try {
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				status = 405;
+				body = error("Only GET is supported.");
+			}
+			else {
+				body = solve(path, query);
+			}
+		}
+		catch (IllegalArgumentException e) {
+			status = 400;
+			body = error(e.getMessage());
+		}
+
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Runs the solve for a request path with the parameters in the query string and returns the result as JSON.
+	//-----------------------------------------------------------------------------------------------------------------
+	String solve(String path, String query) {
+		float apr;
+		switch (path) {
+		case "/payment":
+			apr = (float) nonNegative(query, "apr");
+			return toJson(engine.payment(positive(query, "principal"), apr, whole(query, "months")), apr);
+		case "/apr":
+			QuoteResult result = engine.boundedInterestRate(positive(query, "principal"), whole(query, "months"),
+					positive(query, "payment"));
+			// The solved monthly rate has 5 places, so the APR is exact to 3
+			return toJson(result, (float) (Math.round(result.getInterestRate() * 100000.0) * 12 / 1000.0));
+		case "/months":
+			apr = (float) nonNegative(query, "apr");
+			double principal = positive(query, "principal");
+			double payment = positive(query, "payment");
+			double interest = principal * QuoteEngine.monthlyRate(apr);
+			if (payment <= interest) {
+				throw new IllegalArgumentException("Invalid payment: " + payment + ". The payment must be more than "
+						+ "the first month's interest of " + interest + " to pay the loan off.");
+			}
+			return toJson(engine.numberOfPayments(principal, apr, payment), apr);
+		case "/principal":
+			apr = (float) nonNegative(query, "apr");
+			return toJson(engine.presentValue(apr, whole(query, "months"), positive(query, "payment")), apr);
+		default:
+			throw new IllegalArgumentException("Unknown calculation: " + path);
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Formats a result as a JSON object. The APR is annual and in percent, like the menu input, and is written from
+	// the float the solve used, so it reads 4.9 rather than the widened monthly rate times 1200.
+	//-----------------------------------------------------------------------------------------------------------------
+	static String toJson(QuoteResult result, float apr) {
+		return "{\"solve\":\"" + result.getSolveType()
+				+ "\",\"principal\":" + number(result.getLoanAmount())
+				+ ",\"apr\":" + Float.toString(apr)
+				+ ",\"months\":" + result.getNumberOfPayments()
+				+ ",\"payment\":" + number(result.getPaymentAmount())
+				+ ",\"regularPayment\":" + number(result.getRegularPayment())
+				+ ",\"iterations\":" + result.getIterations() + "}";
+	}
+
+	// JSON has no NaN or Infinity, so values the solves cannot produce are written as null
+	private static String number(double value) {
+		return (Double.isNaN(value) || Double.isInfinite(value)) ? "null" : Double.toString(value);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Formats an error message as a JSON object. Messages echo the decoded parameter values, so quotes, backslashes
+	// and control characters are escaped as JSON requires.
+	//-----------------------------------------------------------------------------------------------------------------
+	static String error(String message) {
+		StringBuilder json = new StringBuilder(message.length() + 16).append("{\"error\":\"");
+		for (int k = 0; k < message.length(); k++) {
+			char c = message.charAt(k);
+			switch (c) {
+			case '"':
+				json.append("\\\"");
+				break;
+			case '\\':
+				json.append("\\\\");
+				break;
+			case '\n':
+				json.append("\\n");
+				break;
+			case '\r':
+				json.append("\\r");
+				break;
+			case '\t':
+				json.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					json.append(String.format("\\u%04x", (int) c));
+				}
+				else {
+					json.append(c);
+				}
+			}
+		}
+		return json.append("\"}").toString();
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the named query parameter as a number greater than zero.
+	//-----------------------------------------------------------------------------------------------------------------
+	private static double positive(String query, String name) {
+		double number = nonNegative(query, name);
+		if (number == 0) {
+			throw new IllegalArgumentException("Invalid " + name + ": " + parameter(query, name)
+					+ ". Please enter a positive value.");
+		}
+		return number;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the named query parameter as a number that is not negative.
+	//-----------------------------------------------------------------------------------------------------------------
+	private static double nonNegative(String query, String name) {
+		String value = parameter(query, name);
+		try {
+			double number = Double.parseDouble(value);
+			if (number < 0 || Double.isNaN(number) || Double.isInfinite(number)) {
+				throw new IllegalArgumentException("Invalid " + name + ": " + value + ". Please enter 0 or more.");
+			}
+			return number;
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid " + name + ": " + value + ".");
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the named query parameter as a whole number greater than zero.
+	//-----------------------------------------------------------------------------------------------------------------
+	private static int whole(String query, String name) {
+		String value = parameter(query, name);
+		try {
+			int number = Integer.parseInt(value);
+			if (number <= 0) {
+				throw new IllegalArgumentException("Invalid " + name + ": " + value + ". Please enter a positive value.");
+			}
+			return number;
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid " + name + ": " + value + ".");
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the URL-decoded value of the named query parameter. A malformed escape throws IllegalArgumentException.
+	//-----------------------------------------------------------------------------------------------------------------
+	private static String parameter(String query, String name) {
+		if (query != null) {
+			for (String pair : query.split("&")) {
+				int equals = pair.indexOf('=');
+				if (equals > 0 && decode(pair.substring(0, equals)).equals(name)) {
+					return decode(pair.substring(equals + 1));
+				}
+			}
+		}
+		throw new IllegalArgumentException("Missing parameter: " + name);
+	}
+
+	private static String decode(String text) {
+		return URLDecoder.decode(text, StandardCharsets.UTF_8);
+	}
+}
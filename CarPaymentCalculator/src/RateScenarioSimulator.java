@@ -0,0 +1,310 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Monte Carlo simulation of APR paths over a loan book, for risk reporting. Every loan is simulated
+ * 					over pathsPerLoan paths. On each path the market APR moves every resetMonths months by a normally
+ * 					distributed change with a standard deviation of volatility percentage points, kept between 0% and
+ * 					rateCap. In the VARIABLE_RATE model the loan follows the market APR at each reset; in the
+ * 					REFINANCE model the loan is refinanced only when the market APR has fallen at least
+ * 					REFINANCE_SPREAD points below the loan's APR. Whenever the APR changes, the remaining balance is
+ * 					amortized over the remaining term with the QuoteEngine monthly amount (PMT) formula.
+ *
+ * 					Each path reports its highest monthly payment and the total interest paid, and both are added to
+ * 					streaming histograms, so memory use does not grow with the number of paths. The book is split into
+ * 					fixed chunks of CHUNK_LOANS loans, priced in parallel on a ForkJoinPool. Each chunk draws from its
+ * 					own SplittableRandom seeded from the simulation seed and the chunk index, so a given seed gives
+ * 					the same distributions for any parallelism. Each task records into its own histograms, which are
+ * 					added together as the tasks join, so the workers never contend on shared buckets.
+ *
+ * 					Paths are kept in primitive arrays and advanced one reset period at a time across all paths of a
+ * 					loan, with the random draws made first, so each period is a straight loop over the arrays. Rates
+ * 					are simulated in double precision; they are not the float rates of the menu.
+ *
+ **********************************************************************************************************************
+ **/
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class RateScenarioSimulator {
+	static final int CHUNK_LOANS = 64;				// loans simulated by one task, each chunk with its own random
+	static final float REFINANCE_SPREAD = 0.5f;		// APR points the market must fall before a loan is refinanced
+	static final int HISTOGRAM_BITS = 7;			// histogram values within 1 / 128 (0.8%) of their true value
+	static final int TASKS_PER_THREAD = 4;			// tasks per pool thread, each with its own histograms
+
+	// Spreads the chunk seeds apart (the 64-bit golden ratio)
+	private static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// How a loan's APR follows the market APR
+	//-----------------------------------------------------------------------------------------------------------------
+	public enum Model {
+		VARIABLE_RATE, REFINANCE
+	}
+
+	private final Model model;
+	private final int resetMonths;
+	private final double volatility;
+	private final double rateCap;
+	private final ForkJoinPool pool;
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Creates a simulator that uses every core. volatility and rateCap are in APR percentage points.
+	//-----------------------------------------------------------------------------------------------------------------
+	public RateScenarioSimulator(Model model, int resetMonths, float volatility, float rateCap) {
+		this(model, resetMonths, volatility, rateCap, Runtime.getRuntime().availableProcessors());
+	}
+
+	public RateScenarioSimulator(Model model, int resetMonths, float volatility, float rateCap, int parallelism) {
+		if (resetMonths <= 0) {
+			throw new IllegalArgumentException("Reset months must be positive: " + resetMonths);
+		}
+		if (!(volatility >= 0) || !(rateCap >= 0)) {
+			throw new IllegalArgumentException("Volatility and rate cap must not be negative.");
+		}
+		this.model = model;
+		this.resetMonths = resetMonths;
+		this.volatility = volatility;
+		this.rateCap = rateCap;
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Distributions of the highest monthly payment and the total interest of every simulated path, in cents
+	//-----------------------------------------------------------------------------------------------------------------
+	public static final class Result {
+		private final LatencyHistogram maxPayments = new LatencyHistogram(HISTOGRAM_BITS);
+		private final LatencyHistogram totalInterest = new LatencyHistogram(HISTOGRAM_BITS);
+
+		Result() {} // created by the simulation tasks
+
+		//-------------------------------------------------------------------------------------------------------------
+		// Adds the paths of another result to this one and returns this result.
+		//-------------------------------------------------------------------------------------------------------------
+		Result add(Result other) {
+			maxPayments.add(other.maxPayments);
+			totalInterest.add(other.totalInterest);
+			return this;
+		}
+
+		public long getPaths() {
+			return maxPayments.getCount();
+		}
+
+		public double getMaxPaymentPercentile(double percentile) {
+			return maxPayments.getValueAtPercentile(percentile) / 100.0;
+		}
+
+		public double getMeanMaxPayment() {
+			return maxPayments.getMean() / 100;
+		}
+
+		public double getTotalInterestPercentile(double percentile) {
+			return totalInterest.getValueAtPercentile(percentile) / 100.0;
+		}
+
+		public double getMeanTotalInterest() {
+			return totalInterest.getMean() / 100;
+		}
+
+		public String toString() {
+			return String.format("paths=%d max payment: mean=%.2f p50=%.2f p95=%.2f p99=%.2f; "
+					+ "total interest: mean=%.2f p50=%.2f p95=%.2f p99=%.2f", getPaths(), getMeanMaxPayment(),
+					getMaxPaymentPercentile(50), getMaxPaymentPercentile(95), getMaxPaymentPercentile(99),
+					getMeanTotalInterest(), getTotalInterestPercentile(50), getTotalInterestPercentile(95),
+					getTotalInterestPercentile(99));
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Simulates pathsPerLoan APR paths for every loan of the book. The APRs are in percent.
+	//-----------------------------------------------------------------------------------------------------------------
+	public Result simulate(double[] principals, float[] aprs, int[] terms, int pathsPerLoan, long seed) {
+		int count = principals.length;
+		if (aprs.length != count || terms.length != count) {
+			throw new IllegalArgumentException("Column lengths differ.");
+		}
+		if (pathsPerLoan <= 0) {
+			throw new IllegalArgumentException("Paths per loan must be positive: " + pathsPerLoan);
+		}
+		int chunks = (count + CHUNK_LOANS - 1) / CHUNK_LOANS;
+		int taskChunks = Math.max(1, chunks / (TASKS_PER_THREAD * pool.getParallelism()));
+		return pool.invoke(new SimulationTask(principals, aprs, terms, pathsPerLoan, seed, taskChunks, 0, chunks));
+	}
+
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Stops the pool's worker threads.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	// Simulates the chunks from start up to, not including, end, splitting in half until at most taskChunks are left.
+	// Returns the paths of those chunks.
+	private final class SimulationTask extends RecursiveTask<Result> {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] principals;
+		private final float[] aprs;
+		private final int[] terms;
+		private final int pathsPerLoan;
+		private final long seed;
+		private final int taskChunks;
+		private final int start;
+		private final int end;
+
+		SimulationTask(double[] principals, float[] aprs, int[] terms, int pathsPerLoan, long seed, int taskChunks,
+				int start, int end) {
+			this.principals = principals;
+			this.aprs = aprs;
+			this.terms = terms;
+			this.pathsPerLoan = pathsPerLoan;
+			this.seed = seed;
+			this.taskChunks = taskChunks;
+			this.start = start;
+			this.end = end;
+		}
+
+		protected Result compute() {
+			if (end - start > taskChunks) {
+				int middle = (start + end) >>> 1;
+				SimulationTask first = new SimulationTask(principals, aprs, terms, pathsPerLoan, seed, taskChunks,
+						start, middle);
+				first.fork();
+				Result second = new SimulationTask(principals, aprs, terms, pathsPerLoan, seed, taskChunks, middle,
+						end).compute();
+				return first.join().add(second);
+			}
+			Result result = new Result();
+			Paths paths = new Paths(pathsPerLoan);
+			for (int chunk = start; chunk < end; chunk++) {
+				SplittableRandom random = new SplittableRandom(seed + chunk * SEED_INCREMENT);
+				int last = Math.min((chunk + 1) * CHUNK_LOANS, principals.length);
+				for (int k = chunk * CHUNK_LOANS; k < last; k++) {
+					simulateLoan(principals[k], aprs[k], terms[k], paths, random, result);
+				}
+			}
+			return result;
+		}
+	}
+
+	// State of every path of the loan being simulated, one array element per path
+	private static final class Paths {
+		final double[] balances;
+		final double[] marketAprs;
+		final double[] loanAprs;
+		final double[] payments;
+		final double[] maxPayments;
+		final double[] interest;
+		final double[] shocks;
+
+		Paths(int size) {
+			balances = new double[size];
+			marketAprs = new double[size];
+			loanAprs = new double[size];
+			payments = new double[size];
+			maxPayments = new double[size];
+			interest = new double[size];
+			shocks = new double[size];
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Simulates every path of one loan and records the results.
+	//-----------------------------------------------------------------------------------------------------------------
+	private void simulateLoan(double principal, float apr, int numberOfPayments, Paths paths,
+			SplittableRandom random, Result result) {
+		int size = paths.balances.length;
+		double initialPayment = QuoteEngine.paymentAmount(principal, apr / 1200.0, numberOfPayments);
+		for (int p = 0; p < size; p++) {
+			paths.balances[p] = principal;
+			paths.marketAprs[p] = apr;
+			paths.loanAprs[p] = apr;
+			paths.payments[p] = initialPayment;
+			paths.maxPayments[p] = initialPayment;
+			paths.interest[p] = 0;
+		}
+
+		for (int month = 0; month < numberOfPayments; month += resetMonths) {
+			int remaining = numberOfPayments - month;
+			if (month > 0) {
+				resetRates(paths, random, remaining);
+			}
+
+			// Advance every path to the next reset: B' = B (1 + i)^k - PMT ((1 + i)^k - 1) / i
+			int periodMonths = Math.min(resetMonths, remaining);
+			for (int p = 0; p < size; p++) {
+				double interestRate = paths.loanAprs[p] / 1200;
+				double balance = paths.balances[p];
+				double payment = paths.payments[p];
+				double nextBalance;
+				if (interestRate == 0.0) {
+					nextBalance = balance - payment * periodMonths;
+				}
+				else {
+					double growth = Math.pow(1 + interestRate, periodMonths);
+					nextBalance = balance * growth - payment * (growth - 1) / interestRate;
+				}
+				paths.interest[p] += payment * periodMonths - (balance - nextBalance);
+				paths.balances[p] = nextBalance;
+			}
+		}
+
+		for (int p = 0; p < size; p++) {
+			result.maxPayments.record(Math.round(paths.maxPayments[p] * 100));
+			result.totalInterest.record(Math.round(paths.interest[p] * 100));
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Moves the market APR of every path, then re-amortizes the paths whose loan APR changed over the remaining term.
+	//-----------------------------------------------------------------------------------------------------------------
+	private void resetRates(Paths paths, SplittableRandom random, int remaining) {
+		int size = paths.balances.length;
+		fillGaussians(random, paths.shocks);
+		for (int p = 0; p < size; p++) {
+			double market = paths.marketAprs[p] + volatility * paths.shocks[p];
+			paths.marketAprs[p] = Math.min(Math.max(market, 0), rateCap);
+		}
+
+		for (int p = 0; p < size; p++) {
+			double market = paths.marketAprs[p];
+			boolean change = model == Model.VARIABLE_RATE ? market != paths.loanAprs[p]
+					: market <= paths.loanAprs[p] - REFINANCE_SPREAD;
+			if (change) {
+				paths.loanAprs[p] = market;
+				double payment = QuoteEngine.paymentAmount(paths.balances[p], market / 1200, remaining);
+				paths.payments[p] = payment;
+				paths.maxPayments[p] = Math.max(paths.maxPayments[p], payment);
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Fills the array with standard normal values, two at a time with the Marsaglia polar method.
+	//-----------------------------------------------------------------------------------------------------------------
+	static void fillGaussians(SplittableRandom random, double[] values) {
+		for (int k = 0; k < values.length; k += 2) {
+			double u;
+			double v;
+			double s;
+			do {
+				u = 2 * random.nextDouble() - 1;
+				v = 2 * random.nextDouble() - 1;
+				s = u * u + v * v;
+			} while (s >= 1 || s == 0);
+			double scale = Math.sqrt(-2 * Math.log(s) / s);
+			values[k] = u * scale;
+			if (k + 1 < values.length) {
+				values[k + 1] = v * scale;
+			}
+		}
+	}
+}
@@ -0,0 +1,228 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Bounded store for saved calculation results. Each result is kept as a fixed-size binary record
+ * 					(the solve type and the principal, APR, number of payments and monthly amount), not as text, so
+ * 					nothing is formatted until results are displayed or exported.
+ *
+ * 					Records are written to an off-heap buffer. When the buffer fills, its records are appended to a
+ * 					memory-mapped temporary file and the buffer is reused. The file is mapped in large fixed regions
+ * 					(64 MiB, about two million records), so a million saved results need one mapping, and the heap
+ * 					holds one small buffer object per region rather than per spill. The store holds at most maxRecords
+ * 					results; the file is deleted on close.
+ *
+ **********************************************************************************************************************
+ **/
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SavedResultsStore implements Closeable {
+	// Record layout: solve type, apr, number of payments, padding, principal, monthly amount
+	static final int RECORD_BYTES = 32;
+	private static final int TYPE = 0;
+	private static final int APR = 4;
+	private static final int NUMBER_OF_PAYMENTS = 8;
+	private static final int PRINCIPAL = 16;
+	private static final int MONTHLY_AMOUNT = 24;
+
+	static final int REGION_BYTES = 64 * 1024 * 1024;		// size of each mapped region of the spill file
+
+	private static final SolveType[] SOLVE_TYPES = SolveType.values();
+
+	private final int bufferRecords;
+	private final long maxRecords;
+	private final int regionRecords;
+	private final ByteBuffer buffer;
+	private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+	private long spilledRecords;
+	private Path spillFile;
+	private FileChannel spillChannel;
+	private long size;
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Receives the records of a page of results.
+	//-----------------------------------------------------------------------------------------------------------------
+	public interface RecordVisitor {
+		void visit(long index, SolveType solveType, double principal, float apr, int numberOfPayments,
+				double monthlyAmount);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Creates a store that keeps bufferRecords results off-heap before spilling, and holds at most maxRecords.
+	//-----------------------------------------------------------------------------------------------------------------
+	public SavedResultsStore(int bufferRecords, long maxRecords) {
+		this(bufferRecords, maxRecords, REGION_BYTES / RECORD_BYTES);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Creates a store whose spill file is mapped regionRecords records at a time. Regions are never larger than the
+	// store can fill, so a small store does not grow its file to a full region.
+	//-----------------------------------------------------------------------------------------------------------------
+	SavedResultsStore(int bufferRecords, long maxRecords, int regionRecords) {
+		if (bufferRecords <= 0 || maxRecords <= 0 || regionRecords <= 0) {
+			throw new IllegalArgumentException("Capacities must be positive.");
+		}
+		this.bufferRecords = bufferRecords;
+		this.maxRecords = maxRecords;
+		this.regionRecords = (int) Math.min(regionRecords, maxRecords);
+		this.buffer = ByteBuffer.allocateDirect(bufferRecords * RECORD_BYTES);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Saves a result. Returns false when the store already holds maxRecords results.
+	//-----------------------------------------------------------------------------------------------------------------
+	public boolean add(SolveType solveType, double principal, float apr, int numberOfPayments, double monthlyAmount) {
+		if (size == maxRecords) {
+			return false;
+		}
+		int slot = (int) (size % bufferRecords);
+		if (slot == 0 && size > 0) {
+			spill();
+		}
+		int offset = slot * RECORD_BYTES;
+		buffer.putInt(offset + TYPE, solveType.ordinal());
+		buffer.putFloat(offset + APR, apr);
+		buffer.putInt(offset + NUMBER_OF_PAYMENTS, numberOfPayments);
+		buffer.putDouble(offset + PRINCIPAL, principal);
+		buffer.putDouble(offset + MONTHLY_AMOUNT, monthlyAmount);
+		size++;
+		return true;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Appends the full buffer to the spill file, mapping a new region whenever the last one fills. The buffer may
+	// span two or more regions.
+	//-----------------------------------------------------------------------------------------------------------------
+	private void spill() {
+		try {
+			if (spillChannel == null) {
+				spillFile = Files.createTempFile("saved-results", ".bin");
+				spillFile.toFile().deleteOnExit();
+				spillChannel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			}
+			long regionBytes = (long) regionRecords * RECORD_BYTES;
+			int copied = 0;
+			while (copied < bufferRecords) {
+				int region = (int) (spilledRecords / regionRecords);
+				if (region == regions.size()) {
+					regions.add(spillChannel.map(FileChannel.MapMode.READ_WRITE, region * regionBytes, regionBytes));
+				}
+				int slot = (int) (spilledRecords % regionRecords);
+				int records = Math.min(bufferRecords - copied, regionRecords - slot);
+
+				ByteBuffer source = buffer.duplicate();
+				source.limit((copied + records) * RECORD_BYTES).position(copied * RECORD_BYTES);
+				ByteBuffer target = regions.get(region).duplicate();
+				target.position(slot * RECORD_BYTES);
+				target.put(source);
+
+				copied += records;
+				spilledRecords += records;
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Unable to spill saved results to disk", e);
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Visits the results from index from, up to count of them, in the order they were saved. Only results of the
+	// given solve type are visited, or all results when solveType is null. Returns the index after the last result
+	// examined, which is where the next page starts.
+	//-----------------------------------------------------------------------------------------------------------------
+	public long forEach(SolveType solveType, long from, int count, RecordVisitor visitor) {
+		long index = Math.max(from, 0);
+		int visited = 0;
+		while (index < size && visited < count) {
+			ByteBuffer records = bufferFor(index);
+			int offset = offset(index);
+			SolveType type = SOLVE_TYPES[records.getInt(offset + TYPE)];
+			if (solveType == null || type == solveType) {
+				visitor.visit(index, type, records.getDouble(offset + PRINCIPAL), records.getFloat(offset + APR),
+						records.getInt(offset + NUMBER_OF_PAYMENTS), records.getDouble(offset + MONTHLY_AMOUNT));
+				visited++;
+			}
+			index++;
+		}
+		return index;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Accessors for a single saved result
+	//-----------------------------------------------------------------------------------------------------------------
+	public SolveType getSolveType(long index) {
+		return SOLVE_TYPES[bufferFor(index).getInt(offset(index) + TYPE)];
+	}
+
+	public double getPrincipal(long index) {
+		return bufferFor(index).getDouble(offset(index) + PRINCIPAL);
+	}
+
+	public float getApr(long index) {
+		return bufferFor(index).getFloat(offset(index) + APR);
+	}
+
+	public int getNumberOfPayments(long index) {
+		return bufferFor(index).getInt(offset(index) + NUMBER_OF_PAYMENTS);
+	}
+
+	public double getMonthlyAmount(long index) {
+		return bufferFor(index).getDouble(offset(index) + MONTHLY_AMOUNT);
+	}
+
+	public long size() {
+		return size;
+	}
+
+	public long getMaxRecords() {
+		return maxRecords;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the buffer or spilled region holding a result.
+	//-----------------------------------------------------------------------------------------------------------------
+	private ByteBuffer bufferFor(long index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return index < spilledRecords ? regions.get((int) (index / regionRecords)) : buffer;
+	}
+
+	private int offset(long index) {
+		long slot = index < spilledRecords ? index % regionRecords : index - spilledRecords;
+		return (int) slot * RECORD_BYTES;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the number of regions of the spill file that are mapped.
+	//-----------------------------------------------------------------------------------------------------------------
+	int mappedRegions() {
+		return regions.size();
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Removes every result and deletes the spill file.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void close() throws IOException {
+		regions.clear();
+		size = 0;
+		spilledRecords = 0;
+		if (spillChannel != null) {
+			spillChannel.close();
+			spillChannel = null;
+			Files.deleteIfExists(spillFile);
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Scalar PaymentKernel, and the fallback when the Vector API is not available. (1 + i)^n is computed
+ * 					with Math.pow once per run of rows that share the same apr and number of payments, so input
+ * 					sorted by rate and term gets the most reuse. Every value matches the corresponding QuoteEngine
+ * 					result bit-for-bit, including the 0% apr penny loss adjustment of the first payment.
+ *
+ **********************************************************************************************************************
+ **/
+
+public final class ScalarPaymentKernel implements PaymentKernel {
+	static final ScalarPaymentKernel INSTANCE = new ScalarPaymentKernel();
+
+	private ScalarPaymentKernel() {} // stateless, use INSTANCE
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the monthly payment amount (PMT) for parallel columns of principal, apr and number of payments.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void payments(double[] loanAmounts, float[] aprs, int[] numberOfPayments, double[] out) {
+		int start = 0;
+		while (start < loanAmounts.length) {
+			int end = runEnd(aprs, numberOfPayments, start);
+			float interestRate = QuoteEngine.monthlyRate(aprs[start]);
+			int n = numberOfPayments[start];
+
+			if (interestRate == 0.0) {
+				for (int k = start; k < end; k++) {
+					out[k] = QuoteEngine.zeroRatePayment(loanAmounts[k], n);
+				}
+			}
+			else {
+				double growth = Math.pow((1 + interestRate), n);
+				double rate = interestRate;
+				double denominator = growth - 1;
+				for (int k = start; k < end; k++) {
+					out[k] = (loanAmounts[k] * rate * growth) / denominator;
+				}
+			}
+			start = end;
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the loan amount (PV) for parallel columns of apr, number of payments and monthly payment.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void presentValues(float[] aprs, int[] numberOfPayments, double[] paymentAmounts, double[] out) {
+		int start = 0;
+		while (start < paymentAmounts.length) {
+			int end = runEnd(aprs, numberOfPayments, start);
+			float interestRate = QuoteEngine.monthlyRate(aprs[start]);
+			int n = numberOfPayments[start];
+
+			if (interestRate == 0.0) {
+				for (int k = start; k < end; k++) {
+					out[k] = n * paymentAmounts[k];
+				}
+			}
+			else {
+				double discount = 1 - (1 / Math.pow((1 + interestRate), n));
+				for (int k = start; k < end; k++) {
+					out[k] = (paymentAmounts[k] / interestRate) * discount;
+				}
+			}
+			start = end;
+		}
+	}
+
+	public int getMaxGrowthUlpError() {
+		return 0;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns the end (exclusive) of the run of rows starting at start that share the same apr and number of payments.
+	//-----------------------------------------------------------------------------------------------------------------
+	private static int runEnd(float[] aprs, int[] numberOfPayments, int start) {
+		float apr = aprs[start];
+		int n = numberOfPayments[start];
+		int end = start + 1;
+		while (end < aprs.length && aprs[end] == apr && numberOfPayments[end] == n) {
+			end++;
+		}
+		return end;
+	}
+
+	public String toString() {
+		return "ScalarPaymentKernel";
+	}
+}
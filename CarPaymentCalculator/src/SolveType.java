@@ -0,0 +1,17 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Identifies which of the four loan values a calculation solved for. The constants follow the order
+ * 					of the Main Menu options in CalculatorMenu.
+ *
+ **********************************************************************************************************************
+ **/
+
+public enum SolveType {
+	PAYMENT,				// Monthly Amount (PMT)
+	INTEREST_RATE,			// APR (i)
+	NUMBER_OF_PAYMENTS,		// Number of Months (n)
+	LOAN_AMOUNT				// Principal (PV)
+}
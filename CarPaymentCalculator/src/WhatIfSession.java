@@ -0,0 +1,213 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Interactive "what-if" session for one loan, such as "same car, try 60 then 72 months, then bump the
+ * 					APR 0.25%". The session keeps the current principal, APR and number of payments, and the
+ * 					intermediate terms of the last quote: (1 + i)^n, ln(1 + i) and the last solved monthly rate.
+ *
+ * 					Changing a value only invalidates the terms that depend on it, so changing the principal reuses
+ * 					(1 + i)^n and a new monthly amount is a few multiplications. APR solves are warm-started from the
+ * 					previous root, which is usually a few Newton steps away after a small change. Monthly amount,
+ * 					principal and number of payments results are the same, bit-for-bit, as FinanceCalculator and
+ * 					QuoteEngine for the same inputs.
+ *
+ * 					The APR is solved with QuoteEngine's bounded solve, not the Newton solve FinanceCalculator uses,
+ * 					so it always terminates. The bounded solve stops much closer to the root than Newton's 0.00001
+ * 					step, so about 1 loan in 100 rounds to the neighbouring five-place monthly rate (0.012 APR points
+ * 					apart). Where Newton diverges or stops at its initial guess the two can differ by more, and for a
+ * 					payment below PV / n the bounded solve returns the rate below 0% that Newton may not find.
+ *
+ * 					A session is not thread-safe; use one per user or per thread.
+ *
+ **********************************************************************************************************************
+ **/
+
+public class WhatIfSession {
+	private static final QuoteEngine engine = new QuoteEngine();
+
+	private double loanAmount;
+	private float apr;
+	private int numberOfPayments;
+	private double paymentAmount;
+	private double regularPayment;
+
+	// Intermediate terms of the current rate and term, recomputed only after they change
+	private float interestRate;				// monthly interest rate for apr
+	private double growth = Double.NaN;		// (1 + i)^n, NaN until needed
+	private double logGrowth = Double.NaN;	// ln(1 + i), NaN until needed
+
+	// Root, before rounding, and iteration count of the last APR solve
+	private final double[] lastRoot = { Double.NaN };
+	private int lastIterations;
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Starts a session for a loan. The apr is in percent, like the menu input (e.g. 4.9 for 4.9%).
+	//-----------------------------------------------------------------------------------------------------------------
+	public WhatIfSession(double loanAmount, float apr, int numberOfPayments) {
+		this.loanAmount = loanAmount;
+		this.numberOfPayments = numberOfPayments;
+		setApr(apr);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Mutators. Each one invalidates only the intermediate terms that depend on the value changed.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void setLoanAmount(double loanAmount) {
+		this.loanAmount = loanAmount;
+	}
+
+	public void setApr(float apr) {
+		float interestRate = QuoteEngine.monthlyRate(apr);
+		if (interestRate != this.interestRate) {
+			this.interestRate = interestRate;
+			this.growth = Double.NaN;
+			this.logGrowth = Double.NaN;
+		}
+		this.apr = apr;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Changes the APR by the given number of percentage points (e.g. 0.25 to bump 4.9% to 5.15%).
+	//-----------------------------------------------------------------------------------------------------------------
+	public void adjustApr(float change) {
+		setApr(apr + change);
+	}
+
+	public void setNumberOfPayments(int numberOfPayments) {
+		if (numberOfPayments != this.numberOfPayments) {
+			this.numberOfPayments = numberOfPayments;
+			this.growth = Double.NaN;
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns (1 + i)^n for the current rate and term, computing it only after either changed.
+	//-----------------------------------------------------------------------------------------------------------------
+	private double growth() {
+		if (Double.isNaN(growth)) {
+			growth = Math.pow((1 + interestRate), numberOfPayments);
+		}
+		return growth;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns ln(1 + i) for the current rate, computing it only after the rate changed.
+	//-----------------------------------------------------------------------------------------------------------------
+	private double logGrowth() {
+		if (Double.isNaN(logGrowth)) {
+			logGrowth = Math.log(1.0 + interestRate);
+		}
+		return logGrowth;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates monthly payment amount (PMT) for the current principal, APR and number of payments
+	// For 0% apr scenarios where pennies are lost due to rounding, the lost pennies are added to the first payment
+	// and regularPayment() returns the payment for the remaining months.
+	//-----------------------------------------------------------------------------------------------------------------
+	public double payment() {
+		if (interestRate == 0.0) {
+			QuoteResult result = engine.payment(loanAmount, apr, numberOfPayments);
+			paymentAmount = result.getPaymentAmount();
+			regularPayment = result.getRegularPayment();
+		}
+		else {
+			double growth = growth();
+			paymentAmount = (loanAmount * interestRate * growth) / (growth - 1);
+			regularPayment = paymentAmount;
+		}
+		return paymentAmount;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates loan amount (PV) for a payment at the current APR and number of payments, and makes it the
+	// session's principal.
+	//-----------------------------------------------------------------------------------------------------------------
+	public double presentValue(double paymentAmount) {
+		this.paymentAmount = paymentAmount;
+		this.regularPayment = paymentAmount;
+		if (interestRate == 0.0) {
+			loanAmount = numberOfPayments * paymentAmount;
+		}
+		else {
+			loanAmount = (paymentAmount / interestRate) * (1 - (1 / growth()));
+		}
+		return loanAmount;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates number of months/payments (n) for a payment at the current principal and APR, and makes it the
+	// session's number of payments.
+	//-----------------------------------------------------------------------------------------------------------------
+	public int solveNumberOfPayments(double paymentAmount) {
+		this.paymentAmount = paymentAmount;
+		this.regularPayment = paymentAmount;
+		int numberOfPayments;
+		if (interestRate == 0.0) {
+			numberOfPayments = (int) (loanAmount / paymentAmount);
+		}
+		else {
+			numberOfPayments = (int) (Math.log((paymentAmount / interestRate) /
+					((paymentAmount / interestRate) - loanAmount)) / logGrowth());
+		}
+		setNumberOfPayments(numberOfPayments);
+		return numberOfPayments;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Solves the APR for a payment at the current principal and number of payments, and makes it the session's APR.
+	// Uses the bounded interest rate solve, starting from the previous root once there is one, so the result can
+	// differ from FinanceCalculator's Newton solve (see above). Returns the APR in percent; the monthly rate is
+	// rounded to five decimal places like FinanceCalculator's interest rate solve. Returns
+	// NaN, and keeps the current APR, when the principal, payment or number of payments is not positive.
+	//-----------------------------------------------------------------------------------------------------------------
+	public float solveApr(double paymentAmount) {
+		this.paymentAmount = paymentAmount;
+		this.regularPayment = paymentAmount;
+		double initialGuessForX = Double.isNaN(lastRoot[0])
+				? (2 * (numberOfPayments * paymentAmount - loanAmount) / (numberOfPayments * loanAmount))
+				: lastRoot[0];
+		QuoteResult result = engine.boundedInterestRate(loanAmount, numberOfPayments, paymentAmount,
+				initialGuessForX, lastRoot);
+		lastIterations = result.getIterations();
+		if (Double.isNaN(result.getInterestRate())) {
+			return Float.NaN;
+		}
+		setApr((float) (result.getInterestRate() * 1200));
+		return apr;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Accessors for the session values
+	//-----------------------------------------------------------------------------------------------------------------
+	public double getLoanAmount() {
+		return loanAmount;
+	}
+
+	public float getApr() {
+		return apr;
+	}
+
+	public int getNumberOfPayments() {
+		return numberOfPayments;
+	}
+
+	public double getPaymentAmount() {
+		return paymentAmount;
+	}
+
+	public double regularPayment() {
+		return regularPayment;
+	}
+
+	public int getLastIterations() {
+		return lastIterations;
+	}
+
+	public String toString() {
+		return "WhatIfSession [loanAmount=" + loanAmount + ", apr=" + apr + ", numberOfPayments=" + numberOfPayments
+				+ ", paymentAmount=" + paymentAmount + "]";
+	}
+}
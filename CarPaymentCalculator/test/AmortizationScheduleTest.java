@@ -0,0 +1,122 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Checks the AmortizationSchedule rows: every payment is its interest plus principal, the regular
+ * 					payment is the PMT rounded to the cent, the principal paid adds up to the loan, the balance ends at
+ * 					zero, and 0% loans pay the lost pennies with the first payment.
+ *
+ * 					Usage: java -cp bin:bin-test:junit.jar:hamcrest.jar org.junit.runner.JUnitCore \
+ * 						AmortizationScheduleTest
+ *
+ **********************************************************************************************************************
+ **/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class AmortizationScheduleTest {
+	static final double[] LOAN_AMOUNTS = { 1, 999.99, 12345.67, 25000, 80000 };
+	static final float[] APRS = { 0f, 1.9f, 4.9f, 12.5f, 29.99f };
+	static final int[] TERMS = { 1, 2, 7, 36, 60, 96, 360 };
+
+	private final AmortizationSchedule schedule = new AmortizationSchedule();
+	private final QuoteEngine engine = new QuoteEngine();
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Every schedule pays the loan off exactly, in cents, within the term
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void schedulePaysOffTheLoanExactly() {
+		for (double loanAmount : LOAN_AMOUNTS) {
+			for (float apr : APRS) {
+				for (int n : TERMS) {
+					String loan = loanAmount + " at " + apr + "% over " + n;
+					List<double[]> rows = new ArrayList<double[]>();
+					double totalInterest = schedule.generate(loanAmount, apr, n,
+							(paymentNumber, payment, interest, principal, balance) -> rows.add(
+									new double[] { paymentNumber, payment, interest, principal, balance }));
+
+					assertTrue(loan, rows.size() >= 1 && rows.size() <= n);
+					long loanCents = Math.round(loanAmount * 100);
+					long principalCents = 0;
+					long interestCents = 0;
+					long balanceCents = loanCents;
+					for (int k = 0; k < rows.size(); k++) {
+						double[] row = rows.get(k);
+						assertEquals(loan, k + 1, (int) row[0]);
+						assertEquals(loan, cents(row[1]), cents(row[2]) + cents(row[3]));
+						balanceCents -= cents(row[3]);
+						assertEquals(loan + " row " + (k + 1), balanceCents, cents(row[4]));
+						principalCents += cents(row[3]);
+						interestCents += cents(row[2]);
+					}
+					assertEquals(loan, loanCents, principalCents);
+					assertEquals(loan, 0, balanceCents);
+					assertEquals(loan, interestCents, cents(totalInterest));
+				}
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Every payment but the last is the PMT rounded to the cent, and interest is the balance times the monthly rate
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void regularPaymentIsRoundedPmt() {
+		double interestRate = QuoteEngine.monthlyRate(4.9f);
+		long regular = Math.round(engine.payment(25000, 4.9f, 60).getPaymentAmount() * 100);
+		long[] balance = { 2500000 };
+		schedule.generate(25000, 4.9f, 60, (paymentNumber, payment, interest, principal, rowBalance) -> {
+			assertEquals(Math.round(balance[0] * interestRate), cents(interest));
+			if (paymentNumber < 60) {
+				assertEquals(regular, cents(payment));
+			}
+			balance[0] = cents(rowBalance);
+		});
+		assertEquals(47064, regular);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// A 0% loan has no interest and pays the pennies lost due to rounding with the first payment
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void zeroAprFirstPaymentCarriesLostPennies() {
+		List<Long> payments = new ArrayList<Long>();
+		double totalInterest = schedule.generate(1000, 0f, 7,
+				(paymentNumber, payment, interest, principal, balance) -> {
+					assertEquals(0, cents(interest));
+					payments.add(cents(payment));
+				});
+		assertEquals(0, totalInterest, 0);
+		assertEquals(7, payments.size());
+		assertEquals(14290, (long) payments.get(0));
+		for (int k = 1; k < 7; k++) {
+			assertEquals(14285, (long) payments.get(k));
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// A single payment is the loan plus one month of interest
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void singlePaymentPaysLoanAndOneMonthOfInterest() {
+		List<double[]> rows = new ArrayList<double[]>();
+		schedule.generate(12000, 12f, 1, (paymentNumber, payment, interest, principal, balance) -> rows.add(
+				new double[] { payment, interest, principal, balance }));
+		assertEquals(1, rows.size());
+		assertEquals(1212000, cents(rows.get(0)[0]));
+		assertEquals(12000, cents(rows.get(0)[1]));
+		assertEquals(0, cents(rows.get(0)[3]));
+	}
+
+	private static long cents(double amount) {
+		return Math.round(amount * 100);
+	}
+}
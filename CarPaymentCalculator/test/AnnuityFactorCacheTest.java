@@ -0,0 +1,148 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Checks that AnnuityFactorCache returns the same PMT and PV as QuoteEngine, bit-for-bit, on misses,
+ * 					hits, 0% loans and APRs that bypass the cache, from one thread and from many, and that the clock
+ * 					keeps referenced entries and the cache never holds more than maximumSize factors.
+ *
+ * 					Usage: java -cp bin:bin-test:junit.jar:hamcrest.jar org.junit.runner.JUnitCore \
+ * 						AnnuityFactorCacheTest
+ *
+ **********************************************************************************************************************
+ **/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class AnnuityFactorCacheTest {
+	static final double[] LOAN_AMOUNTS = { 999.99, 12345.67, 25000, 80000 };
+	static final float[] APRS = { 0f, 1.9f, 2.9f, 4.9f, 7.25f, 19.99f, 4.905f };
+	static final int[] TERMS = { 1, 7, 36, 60, 72 };
+
+	private final QuoteEngine engine = new QuoteEngine();
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// The first quote of each (rate, term) misses and the second hits; both match QuoteEngine
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void matchesQuoteEngineOnMissAndHit() {
+		AnnuityFactorCache cache = new AnnuityFactorCache(256);
+		for (int pass = 0; pass < 2; pass++) {
+			for (double loanAmount : LOAN_AMOUNTS) {
+				for (float apr : APRS) {
+					for (int n : TERMS) {
+						assertQuotesMatch(cache, loanAmount, apr, n);
+					}
+				}
+			}
+		}
+		// 4.905% is not a whole number of basis points, and 0% loans do not use a factor
+		int cachedPairs = (APRS.length - 2) * TERMS.length;
+		assertEquals(cachedPairs, cache.getMisses());
+		assertEquals(cachedPairs, cache.size());
+		assertTrue(cache.getHits() > 0);
+		assertEquals(2 * 2 * LOAN_AMOUNTS.length * TERMS.length, cache.getBypasses());
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// 0% loans keep the penny adjusted first payment of QuoteEngine.payment
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void zeroAprPaymentIncludesLostPennies() {
+		AnnuityFactorCache cache = new AnnuityFactorCache(16);
+		assertEquals(142.9, cache.payment(1000, 0f, 7), 1e-9);
+		assertEquals(engine.payment(1000, 0f, 7).getPaymentAmount(), cache.payment(1000, 0f, 7), 0);
+		assertEquals(0, cache.size());
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Many more pairs than slots: the size stays within maximumSize and every quote still matches
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void sizeStaysWithinMaximum() {
+		AnnuityFactorCache cache = new AnnuityFactorCache(20);
+		for (int basisPoints = 100; basisPoints < 600; basisPoints++) {
+			float apr = basisPoints / 100f;
+			assertQuotesMatch(cache, 25000, apr, 12 + basisPoints % 85);
+			assertTrue(cache.size() <= 20);
+		}
+		assertEquals(20, cache.size());
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// With one set, the clock passes over an entry read since it last passed and evicts the next one
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void clockKeepsReferencedEntry() {
+		AnnuityFactorCache cache = new AnnuityFactorCache(AnnuityFactorCache.WAYS);
+		for (int n = 1; n <= AnnuityFactorCache.WAYS; n++) {
+			cache.payment(25000, 4.9f, n);
+		}
+		cache.payment(25000, 4.9f, 1);					// references the entry under the hand
+		cache.payment(25000, 4.9f, 100);				// evicts the entry for n = 2
+		long misses = cache.getMisses();
+
+		cache.payment(25000, 4.9f, 1);
+		assertEquals(misses, cache.getMisses());
+		cache.payment(25000, 4.9f, 2);
+		assertEquals(misses + 1, cache.getMisses());
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Threads sharing one small cache race on inserts and evictions but always return QuoteEngine's values
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void sharedCacheMatchesFromManyThreads() throws Exception {
+		AnnuityFactorCache cache = new AnnuityFactorCache(32);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+			for (int t = 0; t < 4; t++) {
+				int seed = t;
+				results.add(executor.submit(() -> {
+					int mismatches = 0;
+					for (int k = 0; k < 50000; k++) {
+						float apr = (100 + (k * 7 + seed) % 97) / 100f;
+						int n = 12 + (k + seed) % 5 * 12;
+						if (cache.payment(25000, apr, n) != engine.payment(25000, apr, n).getPaymentAmount()) {
+							mismatches++;
+						}
+					}
+					return mismatches;
+				}));
+			}
+			for (Future<Integer> result : results) {
+				assertEquals(0, (int) result.get());
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+		assertTrue(cache.size() <= 32);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void maximumSizeMustBePositive() {
+		new AnnuityFactorCache(0);
+	}
+
+	private void assertQuotesMatch(AnnuityFactorCache cache, double loanAmount, float apr, int n) {
+		String loan = loanAmount + " at " + apr + "% over " + n;
+		double payment = engine.payment(loanAmount, apr, n).getPaymentAmount();
+		assertEquals(loan, payment, cache.payment(loanAmount, apr, n), 0);
+		assertEquals(loan, engine.presentValue(apr, n, payment).getLoanAmount(), cache.presentValue(apr, n, payment),
+				0);
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Checks BatchFileProcessor: the number parser, a header line detected by failing to parse as a row,
+ * 					rows that are solved, rows that cannot be read or solved and are skipped and counted, 0% rows, and
+ * 					Windows line endings.
+ *
+ * 					Usage: java -cp bin:bin-test:junit.jar:hamcrest.jar org.junit.runner.JUnitCore \
+ * 						BatchFileProcessorTest
+ *
+ **********************************************************************************************************************
+ **/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchFileProcessorTest {
+	private final BatchFileProcessor processor = new BatchFileProcessor();
+	private Path input;
+	private Path output;
+
+	@Before
+	public void createFiles() throws IOException {
+		input = Files.createTempFile("batch-input", ".csv");
+		output = Files.createTempFile("batch-output", ".csv");
+	}
+
+	@After
+	public void deleteFiles() throws IOException {
+		Files.deleteIfExists(input);
+		Files.deleteIfExists(output);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Plain decimals with at most one sign, an empty field as 0, and numbers too long for the fast path
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void parsesDecimals() {
+		assertEquals(-1741.11, parse("-1741.11"), 0);
+		assertEquals(25000, parse(" +25000 "), 0);
+		assertEquals(0.5, parse(".5"), 0);
+		assertEquals(5, parse("5."), 0);
+		assertEquals(0, parse(""), 0);
+		assertEquals(0, parse("   "), 0);
+		assertEquals(0.1, parse("0.1000000000000000000001"), 0);
+		assertEquals(1234567890123456789.0, parse("1234567890123456789"), 0);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Signs after the first, exponents, special values and other text are not numbers
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void rejectsNonDecimals() {
+		for (String field : new String[] { "--5", "+-5", "-", ".", "1.2.3", "1e5", "1E5", "Infinity", "-Infinity",
+				"NaN", "0x10", "5d", "5f", "1 000", "12345678901234567890x", "1" + "0".repeat(400) }) {
+			assertTrue(field, Double.isNaN(parse(field)));
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// A first line that does not parse is a header and is copied; the rows are solved
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void copiesHeaderAndSolvesRows() throws IOException {
+		String result = process("solve,principal,apr,months,payment\n"
+				+ "1,25000,4.9,60,\n"
+				+ "2,25000,,60,470.64\n"
+				+ "3,25000,4.9,,470.64\n"
+				+ "4,,4.9,60,470.64\n");
+		assertEquals("solve,principal,apr,months,payment\n"
+				+ "1,25000.00,4.9000,60,470.64\n"
+				+ "2,25000.00,4.8960,60,470.64\n"
+				+ "3,25000.00,4.9000,59,470.64\n"
+				+ "4,24999.88,4.9000,60,470.64\n", result);
+		assertEquals(4, processor.getRows());
+		assertEquals(0, processor.getSkippedRows());
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// A first line that parses is a row, not a header
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void firstLineThatParsesIsARow() throws IOException {
+		assertEquals("1,1200.00,0.0000,12,100.00\n", process("1,1200,0,12,\n"));
+		assertEquals(1, processor.getRows());
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Unreadable rows, unknown solves, and term rows whose payment never pays the loan off are skipped and counted
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void skipsRowsThatCannotBeReadOrSolved() throws IOException {
+		String result = process("solve,principal,apr,months,payment\n"
+				+ "1,--5,4.9,60,\n"
+				+ "1,Infinity,4.9,60,\n"
+				+ "1,NaN,4.9,60,\n"
+				+ "1,25000,1e1,60,\n"
+				+ "1,25000,4.9,60\n"
+				+ "9,25000,4.9,60,470.64\n"
+				+ "3,25000,4.9,,102.08\n"
+				+ "3,25000,4.9,,50\n"
+				+ "1,25000,4.9,60,\n");
+		assertEquals("solve,principal,apr,months,payment\n"
+				+ "1,25000.00,4.9000,60,470.64\n", result);
+		assertEquals(9, processor.getRows());
+		assertEquals(8, processor.getSkippedRows());
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// 0% rows: the payment carries the lost pennies, and the term and principal use the 0% formulas
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void solvesZeroAprRows() throws IOException {
+		String result = process("1,1000,0,7,\n"
+				+ "3,1000,0,,100\n"
+				+ "4,,0,12,100\n");
+		assertEquals("1,1000.00,0.0000,7,142.90\n"
+				+ "3,1000.00,0.0000,10,100.00\n"
+				+ "4,1200.00,0.0000,12,100.00\n", result);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Windows line endings, blank lines, and a last line without a line feed
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void readsWindowsLineEndingsAndLastLine() throws IOException {
+		String result = process("solve,principal,apr,months,payment\r\n\r\n1,25000,4.9,60,\r\n1,1200,0,12,");
+		assertEquals("solve,principal,apr,months,payment\n"
+				+ "1,25000.00,4.9000,60,470.64\n"
+				+ "1,1200.00,0.0000,12,100.00\n", result);
+		assertEquals(2, processor.getRows());
+	}
+
+	private String process(String csv) throws IOException {
+		Files.write(input, csv.getBytes(StandardCharsets.US_ASCII));
+		processor.process(input, output);
+		return new String(Files.readAllBytes(output), StandardCharsets.US_ASCII);
+	}
+
+	private static double parse(String field) {
+		byte[] bytes = ("," + field + ",").getBytes(StandardCharsets.US_ASCII);
+		return BatchFileProcessor.parseNumber(ByteBuffer.wrap(bytes), 1, bytes.length - 1);
+	}
+}
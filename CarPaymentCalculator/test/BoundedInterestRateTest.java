@@ -0,0 +1,151 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Edge cases of the bounded interest rate solve: payments at or below PV / n (0% and negative rates),
+ * 					a single payment, payments that make the Newton solve diverge, and inputs that are not positive.
+ * 					Every solve must finish within MAX_BOUNDED_ITERATIONS steps.
+ *
+ * 					Usage: java -cp bin:bin-test:junit.jar:hamcrest.jar org.junit.runner.JUnitCore \
+ * 						BoundedInterestRateTest
+ *
+ **********************************************************************************************************************
+ **/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class BoundedInterestRateTest {
+	static final double RATE_STEP = 0.00001;		// the solve rounds the monthly rate to 5 places
+
+	private final QuoteEngine engine = new QuoteEngine();
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// A payment of exactly PV / n is a 0% loan
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void paymentOfPrincipalOverTermIsZeroRate() {
+		for (int n : new int[] { 1, 12, 60, 360 }) {
+			QuoteResult result = solved(24000, n, 24000.0 / n);
+			assertEquals("n = " + n, 0, result.getInterestRate(), 0);
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// The regular payment of a 0% loan is rounded down to the cent, so it is at or below PV / n and solves to a rate
+	// at or just below 0%
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void zeroAprRegularPaymentSolvesToZeroOrBelow() {
+		for (double loanAmount : new double[] { 1000, 12345.67, 25000 }) {
+			for (int n : new int[] { 7, 36, 72 }) {
+				double payment = engine.payment(loanAmount, 0f, n).getRegularPayment();
+				double rate = solved(loanAmount, n, payment).getInterestRate();
+
+				assertTrue(loanAmount + " over " + n + " rate " + rate, rate <= 0);
+				assertPaymentWithinOneStep(loanAmount, n, payment, rate);
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// A payment below PV / n gives a negative rate, or 0% once rounded when it is within a cent, that reproduces the
+	// payment
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void paymentBelowPrincipalOverTermIsNegativeRate() {
+		for (double payment : new double[] { 399.99, 350, 200, 50, 1 }) {
+			QuoteResult result = solved(24000, 60, payment);
+			double rate = result.getInterestRate();
+
+			assertTrue("payment " + payment + " rate " + rate, rate <= 0 && rate > -1);
+			assertTrue("payment " + payment + " rate " + rate, payment > 399 || rate < 0);
+			assertPaymentWithinOneStep(24000, 60, payment, rate);
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// With a single payment the rate is the payment over the principal, less one
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void singlePaymentRateIsPaymentOverPrincipal() {
+		assertEquals(0.01, solved(1000, 1, 1010).getInterestRate(), 1e-9);
+		assertEquals(0.25, solved(1000, 1, 1250).getInterestRate(), 1e-9);
+		assertEquals(-0.5, solved(1000, 1, 500).getInterestRate(), 1e-9);
+		assertEquals(0, solved(1000, 1, 1000).getInterestRate(), 0);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Payments far above PV / n, where the Newton solve overshoots, still finish with the right rate
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void largePaymentsConverge() {
+		for (int n : new int[] { 2, 60, 360 }) {
+			for (double payment : new double[] { 500, 900, 5000 }) {
+				QuoteResult result = solved(1000, n, payment);
+				assertPaymentWithinOneStep(1000, n, payment, result.getInterestRate());
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// For ordinary loans the bounded solve is within one 5-place step of the Newton solve
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void matchesNewtonWithinOneStep() {
+		for (float apr : new float[] { 0.9f, 2.9f, 4.9f, 9.99f, 19.99f }) {
+			for (int n : new int[] { 12, 36, 60, 84 }) {
+				double payment = engine.payment(25000, apr, n).getPaymentAmount();
+				double newton = engine.interestRate(25000, n, payment).getInterestRate();
+				double bounded = solved(25000, n, payment).getInterestRate();
+				assertEquals(apr + "% over " + n, newton, bounded, RATE_STEP * 1.01);
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// A principal, payment or term that is not positive has no rate
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void nonPositiveInputsReturnNaN() {
+		assertNaN(engine.boundedInterestRate(0, 60, 400));
+		assertNaN(engine.boundedInterestRate(-1000, 60, 400));
+		assertNaN(engine.boundedInterestRate(24000, 60, 0));
+		assertNaN(engine.boundedInterestRate(24000, 60, -400));
+		assertNaN(engine.boundedInterestRate(24000, 0, 400));
+		assertNaN(engine.boundedInterestRate(24000, -12, 400));
+		assertNaN(engine.boundedInterestRate(Double.NaN, 60, 400));
+		assertNaN(engine.boundedInterestRate(24000, 60, Double.NaN));
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Solves and checks the step limit
+	//-----------------------------------------------------------------------------------------------------------------
+	private QuoteResult solved(double loanAmount, int numberOfPayments, double paymentAmount) {
+		QuoteResult result = engine.boundedInterestRate(loanAmount, numberOfPayments, paymentAmount);
+		assertTrue("iterations " + result.getIterations(), result.getIterations() > 0
+				&& result.getIterations() <= QuoteEngine.MAX_BOUNDED_ITERATIONS);
+		return result;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// The payment lies between the payments at the rates one 5-place step either side of the rounded rate. The rate
+	// is first taken back from float to its 5-place value, so a bound of 0% is exactly 0.
+	//-----------------------------------------------------------------------------------------------------------------
+	private static void assertPaymentWithinOneStep(double loanAmount, int numberOfPayments, double paymentAmount,
+			double rate) {
+		double steps = Math.round(rate / RATE_STEP);
+		double low = QuoteEngine.paymentAmount(loanAmount, (steps - 1) / 100000.0, numberOfPayments);
+		double high = QuoteEngine.paymentAmount(loanAmount, (steps + 1) / 100000.0, numberOfPayments);
+		assertTrue(loanAmount + " over " + numberOfPayments + " payment " + paymentAmount + " rate " + rate,
+				low <= paymentAmount && paymentAmount <= high);
+	}
+
+	private static void assertNaN(QuoteResult result) {
+		assertTrue(String.valueOf(result.getInterestRate()), Double.isNaN(result.getInterestRate()));
+		assertEquals(0, result.getIterations());
+	}
+}
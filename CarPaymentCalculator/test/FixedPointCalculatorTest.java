@@ -0,0 +1,169 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Checks the rounding rules of FixedPointCalculator: 0% loans with the lost pennies in the first
+ * 					payment, payments within a cent of the double formula, the lowest basis point APR, terms that
+ * 					round-trip the payment, payments that never pay the loan off, and terms that are not positive.
+ *
+ * 					Usage: java -cp bin:bin-test:junit.jar:hamcrest.jar org.junit.runner.JUnitCore \
+ * 						FixedPointCalculatorTest
+ *
+ **********************************************************************************************************************
+ **/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FixedPointCalculatorTest {
+	static final long[] LOAN_CENTS = { 1, 99, 100000, 1234567, 2500000, 8000000, 100000000 };
+	static final int[] BASIS_POINTS = { 1, 190, 290, 490, 725, 1999, 2999 };
+	static final int[] TERMS = { 1, 2, 7, 12, 36, 60, 72, 96, 360 };
+
+	private final FixedPointCalculator calculator = new FixedPointCalculator();
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// 0% loans: the pennies that do not divide evenly are paid with the first payment, and the payments add up to the
+	// loan exactly
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void zeroAprFirstPaymentCarriesLostPennies() {
+		assertEquals(14285, calculator.payment(100000, 0, 7));
+		assertEquals(14290, calculator.firstPayment(100000, 0, 7));
+		for (long loanCents : LOAN_CENTS) {
+			for (int n : TERMS) {
+				long regular = calculator.payment(loanCents, 0, n);
+				long first = calculator.firstPayment(loanCents, 0, n);
+				assertEquals(loanCents + " over " + n, loanCents, first + (n - 1) * regular);
+				assertEquals(n * regular, calculator.presentValue(0, n, regular));
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// 0% terms include a final, smaller payment when the payment does not divide the loan
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void zeroAprTermRoundsUp() {
+		assertEquals(4, calculator.numberOfPayments(100000, 0, 25000));
+		assertEquals(5, calculator.numberOfPayments(100000, 0, 24999));
+		assertEquals(1, calculator.numberOfPayments(100000, 0, 200000));
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Payments are the double formula at the exact basis point rate, rounded half up to the cent
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void paymentIsWithinACentOfTheDoubleFormula() {
+		for (long loanCents : LOAN_CENTS) {
+			for (int basisPoints : BASIS_POINTS) {
+				for (int n : TERMS) {
+					double expected = QuoteEngine.paymentAmount((double) loanCents, basisPoints
+							/ FixedPointCalculator.BASIS_POINTS_PER_MONTHLY_RATE, n);
+					long payment = calculator.payment(loanCents, basisPoints, n);
+					assertEquals(loanCents + " at " + basisPoints + " over " + n, expected, payment, 0.5 + 1e-6);
+					assertEquals(payment, calculator.firstPayment(loanCents, basisPoints, n));
+				}
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// The APR is the lowest whole basis point whose payment is at least the given payment
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void interestRateIsLowestBasisPointCoveringThePayment() {
+		for (long loanCents : new long[] { 100000, 2500000, 8000000 }) {
+			for (int basisPoints : BASIS_POINTS) {
+				for (int n : new int[] { 12, 36, 60, 96 }) {
+					long payment = calculator.payment(loanCents, basisPoints, n);
+					int rate = calculator.interestRate(loanCents, n, payment);
+					String loan = loanCents + " at " + basisPoints + " over " + n;
+
+					assertTrue(loan + " gave " + rate, rate <= basisPoints);
+					assertTrue(loan, calculator.payment(loanCents, rate, n) >= payment);
+					assertTrue(loan, rate == 0 || calculator.payment(loanCents, rate - 1, n) < payment);
+				}
+			}
+		}
+		// A payment that a 0% loan already covers, and one that no rate up to the maximum reaches
+		assertEquals(0, calculator.interestRate(100000, 12, 8000));
+		assertEquals(FixedPointCalculator.MAX_BASIS_POINTS, calculator.interestRate(100000, 12, 100000000));
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// The rounded payment of an n month loan gives a term with the same rounded payment. That is n unless a
+	// neighbouring term rounds to the same payment, as small or nearly interest-only payments over long terms do.
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void termRoundTripsTheRoundedPayment() {
+		for (long loanCents : new long[] { 100000, 1234567, 2500000, 8000000 }) {
+			for (int basisPoints : BASIS_POINTS) {
+				for (int n : TERMS) {
+					long payment = calculator.payment(loanCents, basisPoints, n);
+					int term = calculator.numberOfPayments(loanCents, basisPoints, payment);
+					String loan = loanCents + " at " + basisPoints + " over " + n + " gave " + term;
+
+					assertEquals(loan, payment, calculator.payment(loanCents, basisPoints, term));
+					if (n == 1 || calculator.payment(loanCents, basisPoints, n - 1) != payment
+							&& calculator.payment(loanCents, basisPoints, n + 1) != payment) {
+						assertEquals(loan, n, term);
+					}
+				}
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// A payment that does not cover the first month's interest never pays the loan off
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void paymentThatNeverPaysOffReturnsMinusOne() {
+		// 4.90% on $25,000.00 is $102.08 and a third of a cent of interest in the first month
+		assertEquals(-1, calculator.numberOfPayments(2500000, 490, 10208));
+		assertEquals(-1, calculator.numberOfPayments(2500000, 490, 5000));
+		assertEquals(-1, calculator.numberOfPayments(2500000, 490, 0));
+		assertEquals(-1, calculator.numberOfPayments(2500000, 0, 0));
+		assertTrue(calculator.numberOfPayments(2500000, 490, 10209) > 1000);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// A term of no payments is rejected, including on the 0% path that divides by the term
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void nonPositiveTermIsRejected() {
+		for (int basisPoints : new int[] { 0, 490 }) {
+			assertRejected(() -> calculator.payment(100000, basisPoints, 0));
+			assertRejected(() -> calculator.firstPayment(100000, basisPoints, 0));
+			assertRejected(() -> calculator.presentValue(basisPoints, -1, 10000));
+		}
+		assertRejected(() -> calculator.interestRate(100000, 0, 10000));
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Repeated squaring agrees with pow to within the rounding of the multiplications
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void powerMatchesPow() {
+		for (int basisPoints : BASIS_POINTS) {
+			double base = 1 + basisPoints / FixedPointCalculator.BASIS_POINTS_PER_MONTHLY_RATE;
+			for (int n = 0; n <= 480; n++) {
+				double expected = Math.pow(base, n);
+				assertEquals(basisPoints + "^" + n, expected, FixedPointCalculator.power(base, n), expected * 1e-13);
+			}
+		}
+	}
+
+	private static void assertRejected(Runnable call) {
+		try {
+			call.run();
+			throw new AssertionError("Expected IllegalArgumentException");
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Checks PaymentTargetIndex against a loan amount (PV) solve of every grid point: the combinations
+ * 					found and counted, their principals bit-for-bit, prices exactly on a limit, 0% grid points, and
+ * 					grid points and target payments that are rejected.
+ *
+ * 					Usage: java -cp bin:bin-test:junit.jar:hamcrest.jar org.junit.runner.JUnitCore \
+ * 						PaymentTargetIndexTest
+ *
+ **********************************************************************************************************************
+ **/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PaymentTargetIndexTest {
+	static final float[] APRS = { 0f, 0.9f, 1.9f, 2.9f, 3.49f, 4.9f, 5.99f, 7.25f, 12.5f, 19.99f };
+	static final int[] TERMS = { 12, 24, 36, 48, 60, 72, 84 };
+
+	private final QuoteEngine engine = new QuoteEngine();
+	private final PaymentTargetIndex index = new PaymentTargetIndex(APRS, TERMS);
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Random targets and price ranges find exactly the grid points a PV solve of each one puts in range
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void findMatchesPvSolveOfEveryGridPoint() {
+		assertEquals(APRS.length * TERMS.length, index.size());
+		Random random = new Random(42);
+		for (int k = 0; k < 2000; k++) {
+			double targetPayment = 50 + random.nextInt(150000) / 100.0;
+			double downPayment = random.nextInt(4) * 2500;
+			double minPrice = random.nextInt(6000000) / 100.0;
+			double maxPrice = k % 4 == 0 ? Double.POSITIVE_INFINITY : minPrice + random.nextInt(4000000) / 100.0;
+			assertFindMatches(targetPayment, downPayment, minPrice, maxPrice);
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Limits equal to the price of a grid point include it, and limits one ulp past it exclude it
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void pricesOnALimitAreIncluded() {
+		for (float apr : APRS) {
+			for (int n : TERMS) {
+				double price = engine.presentValue(apr, n, 450).getLoanAmount() + 1000;
+				assertFindMatches(450, 1000, price, price);
+				assertFindMatches(450, 1000, price, Double.POSITIVE_INFINITY);
+				assertFindMatches(450, 1000, Math.nextUp(price), Double.POSITIVE_INFINITY);
+				assertFindMatches(450, 1000, 0, Math.nextDown(price));
+				assertTrue(index.count(450, 1000, price, price) >= 1);
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// 0% grid points buy the payment times the term
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void zeroAprBuysPaymentTimesTerm() {
+		PaymentTargetIndex zeroIndex = new PaymentTargetIndex(new float[] { 0f }, TERMS);
+		List<Double> principals = new ArrayList<Double>();
+		int found = zeroIndex.find(450, 0, 10800, 21600, (apr, n, principal, price) -> {
+			assertEquals(450.0 * n, principal, 0);
+			principals.add(principal);
+		});
+		assertEquals(3, found);
+		assertEquals(List.of(10800.0, 16200.0, 21600.0), principals);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Terms that are not positive, negative APRs and target payments that are not positive and finite are rejected
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void invalidGridPointsAndTargetsAreRejected() {
+		assertRejected(() -> new PaymentTargetIndex(APRS, new int[] { 60, 0 }));
+		assertRejected(() -> new PaymentTargetIndex(new float[] { 4.9f, -1f }, TERMS));
+		for (double targetPayment : new double[] { 0, -450, Double.NaN, Double.POSITIVE_INFINITY }) {
+			assertRejected(() -> index.find(targetPayment, 0, 20000, (apr, n, principal, price) -> { }));
+			assertRejected(() -> index.count(targetPayment, 0, 20000, Double.POSITIVE_INFINITY));
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Finds and counts the combinations and checks them against a PV solve of every grid point
+	//-----------------------------------------------------------------------------------------------------------------
+	private void assertFindMatches(double targetPayment, double downPayment, double minPrice, double maxPrice) {
+		String query = targetPayment + " down " + downPayment + " for " + minPrice + " to " + maxPrice;
+		int expected = 0;
+		for (float apr : APRS) {
+			for (int n : TERMS) {
+				double price = engine.presentValue(apr, n, targetPayment).getLoanAmount() + downPayment;
+				if (price >= minPrice && price <= maxPrice) {
+					expected++;
+				}
+			}
+		}
+
+		double[] previous = { Double.NEGATIVE_INFINITY };
+		int found = index.find(targetPayment, downPayment, minPrice, maxPrice, (apr, n, principal, price) -> {
+			assertEquals(query, engine.presentValue(apr, n, targetPayment).getLoanAmount(), principal, 0);
+			assertEquals(query, principal + downPayment, price, 0);
+			assertTrue(query, price >= minPrice && price <= maxPrice);
+			assertTrue(query, principal >= previous[0]);
+			previous[0] = principal;
+		});
+		assertEquals(query, expected, found);
+		assertEquals(query, expected, index.count(targetPayment, downPayment, minPrice, maxPrice));
+	}
+
+	private static void assertRejected(Runnable call) {
+		try {
+			call.run();
+			throw new AssertionError("Expected IllegalArgumentException");
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,238 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Checks the closed form payoffs of PayoffEngine against paying the loan off month by month: extra
+ * 					monthly payments, lump sums splitting the loan into segments, a lump sum larger than the balance,
+ * 					lump sums due after the payoff, 0% loans and payments that never pay the loan off. Also checks
+ * 					that the batch overloads match the single loan payoff and that invalid input is rejected.
+ *
+ * 					Usage: java -cp bin:bin-test:junit.jar:hamcrest.jar org.junit.runner.JUnitCore PayoffEngineTest
+ *
+ **********************************************************************************************************************
+ **/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class PayoffEngineTest {
+	// Amounts are not rounded month by month, so the closed form and the monthly loop only differ by rounding error
+	static final double TOLERANCE = 1e-6;
+
+	private final PayoffEngine engine = new PayoffEngine(4, 7);
+
+	@After
+	public void shutdownEngine() {
+		engine.shutdown();
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// The scheduled payment pays the loan off in its term, and an extra payment pays it off sooner
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void extraPaymentMatchesMonthlyLoop() {
+		PayoffEngine.Result scheduled = engine.payoff(25000, 4.9f, 470.64, 0);
+		assertEquals(60, scheduled.getNumberOfPayments());
+		assertEquals(0, scheduled.getInterestSaved(), 0);
+		assertMatchesLoop(scheduled, 25000, 4.9f, 470.64, null, null);
+
+		PayoffEngine.Result extra = engine.payoff(25000, 4.9f, 470.64, 100);
+		assertTrue(extra.getNumberOfPayments() < 60);
+		assertEquals(scheduled.getTotalInterest() - extra.getTotalInterest(), extra.getInterestSaved(), TOLERANCE);
+		assertMatchesLoop(extra, 25000, 4.9f, 570.64, null, null);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Each lump sum starts a new segment from the balance left after it
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void lumpSumSegmentsMatchMonthlyLoop() {
+		int[] months = { 6, 18, 19, 40 };
+		double[] amounts = { 2000, 500, 0, 3000 };
+		for (float apr : new float[] { 1.9f, 4.9f, 12.5f, 19.99f }) {
+			for (double extraPayment : new double[] { 0, 25, 250 }) {
+				PayoffEngine.Result result = engine.payoff(30000, apr, 550, extraPayment, months, amounts);
+				assertMatchesLoop(result, 30000, apr, 550 + extraPayment, months, amounts);
+				assertTrue(result.getInterestSaved() > 0);
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// A lump sum larger than the balance pays only the balance, in the month it is due
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void lumpSumLargerThanBalancePaysOnlyTheBalance() {
+		PayoffEngine.Result result = engine.payoff(25000, 4.9f, 470.64, 0, new int[] { 12, 24 },
+				new double[] { 1000000, 5000 });
+		assertEquals(12, result.getNumberOfPayments());
+		assertMatchesLoop(result, 25000, 4.9f, 470.64, new int[] { 12 }, new double[] { 1000000 });
+		assertTrue(result.getFinalPayment() > 470.64 && result.getFinalPayment() < 25000);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Lump sums due after the regular payments pay the loan off change nothing
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void lumpSumAfterPayoffIsIgnored() {
+		PayoffEngine.Result without = engine.payoff(25000, 4.9f, 470.64, 0);
+		PayoffEngine.Result with = engine.payoff(25000, 4.9f, 470.64, 0, new int[] { 60, 61 },
+				new double[] { 5000, 5000 });
+		assertEquals(without.getNumberOfPayments(), with.getNumberOfPayments());
+		assertEquals(without.getFinalPayment(), with.getFinalPayment(), 0);
+		assertEquals(without.getTotalInterest(), with.getTotalInterest(), 0);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// 0% loans: the payments add up to the loan, with a smaller final payment when the payment does not divide it
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void zeroAprPaysTheLoanExactly() {
+		PayoffEngine.Result even = engine.payoff(1000, 0f, 100, 0);
+		assertEquals(10, even.getNumberOfPayments());
+		assertEquals(100, even.getFinalPayment(), TOLERANCE);
+		assertEquals(0, even.getTotalInterest(), TOLERANCE);
+
+		PayoffEngine.Result lump = engine.payoff(1000, 0f, 100, 0, new int[] { 3 }, new double[] { 150 });
+		assertEquals(9, lump.getNumberOfPayments());
+		assertEquals(50, lump.getFinalPayment(), TOLERANCE);
+		assertEquals(0, lump.getTotalInterest(), TOLERANCE);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// A payment that does not cover the first month's interest never pays the loan off
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void paymentThatNeverPaysOff() {
+		// 4.90% on $25,000.00 is a little over $102.08 of interest in the first month
+		for (double payment : new double[] { 102.08, 50, 0 }) {
+			PayoffEngine.Result result = engine.payoff(25000, 4.9f, payment, 0);
+			assertEquals(PayoffEngine.NEVER, result.getNumberOfPayments());
+			assertTrue(Double.isNaN(result.getFinalPayment()));
+			assertEquals(Double.POSITIVE_INFINITY, result.getTotalInterest(), 0);
+		}
+		// The extra payment pays it off, so the interest saved is infinite
+		PayoffEngine.Result extra = engine.payoff(25000, 4.9f, 102.08, 400);
+		assertTrue(extra.getNumberOfPayments() > 0);
+		assertEquals(Double.POSITIVE_INFINITY, extra.getInterestSaved(), 0);
+		// A lump sum large enough brings the balance down to where the payment covers the interest
+		PayoffEngine.Result lump = engine.payoff(25000, 4.9f, 102.08, 0, new int[] { 1 }, new double[] { 5000 });
+		assertMatchesLoop(lump, 25000, 4.9f, 102.08, new int[] { 1 }, new double[] { 5000 });
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// The batch overloads split across tasks and match the single loan payoff of every account bit-for-bit
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void batchMatchesSinglePayoff() {
+		Random random = new Random(42);
+		int count = 1000;
+		double[] balances = new double[count];
+		float[] aprs = new float[count];
+		double[] payments = new double[count];
+		double[] extraPayments = new double[count];
+		int[] lumpMonths = new int[count];
+		double[] lumpAmounts = new double[count];
+		for (int k = 0; k < count; k++) {
+			balances[k] = 1000 + random.nextInt(5000000) / 100.0;
+			aprs[k] = random.nextInt(2000) / 100f;
+			payments[k] = balances[k] / (12 + random.nextInt(84)) + (k % 50 == 0 ? -balances[k] / 12 : 0);
+			extraPayments[k] = random.nextInt(3) * 50;
+			lumpMonths[k] = 1 + random.nextInt(60);
+			lumpAmounts[k] = k % 3 == 0 ? 0 : random.nextInt(2000000) / 100.0;
+		}
+
+		int[] numberOfPayments = new int[count];
+		double[] finalPayments = new double[count];
+		double[] interestSaved = new double[count];
+		engine.payoff(balances, aprs, payments, extraPayments, lumpMonths, lumpAmounts, numberOfPayments,
+				finalPayments, interestSaved);
+		for (int k = 0; k < count; k++) {
+			PayoffEngine.Result result = engine.payoff(balances[k], aprs[k], payments[k], extraPayments[k],
+					new int[] { lumpMonths[k] }, new double[] { lumpAmounts[k] });
+			assertEquals("account " + k, result.getNumberOfPayments(), numberOfPayments[k]);
+			assertEquals("account " + k, result.getFinalPayment(), finalPayments[k], 0);
+			assertEquals("account " + k, result.getInterestSaved(), interestSaved[k], 0);
+		}
+
+		engine.payoff(balances, aprs, payments, extraPayments, numberOfPayments, finalPayments, interestSaved);
+		for (int k = 0; k < count; k++) {
+			PayoffEngine.Result result = engine.payoff(balances[k], aprs[k], payments[k], extraPayments[k]);
+			assertEquals("account " + k, result.getNumberOfPayments(), numberOfPayments[k]);
+			assertEquals("account " + k, result.getFinalPayment(), finalPayments[k], 0);
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Lump sums out of order, without amounts, of different lengths, negative or before the first month; batch
+	// columns of different lengths; and chunks that are not positive are rejected
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void invalidInputIsRejected() {
+		assertRejected(() -> engine.payoff(25000, 4.9f, 470.64, 0, new int[] { 12, 12 }, new double[] { 1, 1 }));
+		assertRejected(() -> engine.payoff(25000, 4.9f, 470.64, 0, new int[] { 12 }, null));
+		assertRejected(() -> engine.payoff(25000, 4.9f, 470.64, 0, null, new double[] { 1 }));
+		assertRejected(() -> engine.payoff(25000, 4.9f, 470.64, 0, new int[] { 12 }, new double[] { 1, 1 }));
+		assertRejected(() -> engine.payoff(25000, 4.9f, 470.64, 0, new int[] { 12 }, new double[] { -1 }));
+		assertRejected(() -> engine.payoff(25000, 4.9f, 470.64, 0, new int[] { 0 }, new double[] { 1 }));
+		assertRejected(() -> engine.payoff(25000, 4.9f, 470.64, 0, new int[] { 12 }, new double[] { Double.NaN }));
+		assertRejected(() -> engine.payoff(new double[2], new float[2], new double[2], new double[2], new int[1],
+				new double[2], new double[2]));
+		assertRejected(() -> engine.payoff(new double[2], new float[2], new double[2], new double[2], new int[1],
+				new double[1], new int[2], new double[2], new double[2]));
+		assertRejected(() -> new PayoffEngine(1, 0));
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Pays the loan off month by month: the interest is added, then the payment and any lump sum due are paid
+	//-----------------------------------------------------------------------------------------------------------------
+	private static void assertMatchesLoop(PayoffEngine.Result result, double loanAmount, float apr, double payment,
+			int[] lumpMonths, double[] lumpAmounts) {
+		double rate = QuoteEngine.monthlyRate(apr);
+		double balance = loanAmount;
+		double paid = 0;
+		int lump = 0;
+		for (int month = 1; month <= 1000; month++) {
+			balance *= 1 + rate;
+			if (balance <= payment + PayoffEngine.HALF_CENT) {
+				assertPayoff(result, month, balance, paid + balance - loanAmount);
+				return;
+			}
+			balance -= payment;
+			paid += payment;
+			if (lumpMonths != null && lump < lumpMonths.length && lumpMonths[lump] == month) {
+				double lumpAmount = lumpAmounts[lump++];
+				if (lumpAmount >= balance - PayoffEngine.HALF_CENT) {
+					assertPayoff(result, month, payment + balance, paid + balance - loanAmount);
+					return;
+				}
+				balance -= lumpAmount;
+				paid += lumpAmount;
+			}
+		}
+		throw new AssertionError("Not paid off in 1000 months: " + result);
+	}
+
+	private static void assertPayoff(PayoffEngine.Result result, int numberOfPayments, double finalPayment,
+			double totalInterest) {
+		assertEquals(result.toString(), numberOfPayments, result.getNumberOfPayments());
+		assertEquals(result.toString(), finalPayment, result.getFinalPayment(), TOLERANCE);
+		assertEquals(result.toString(), totalInterest, result.getTotalInterest(), TOLERANCE);
+	}
+
+	private static void assertRejected(Runnable call) {
+		try {
+			call.run();
+			throw new AssertionError("Expected IllegalArgumentException");
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
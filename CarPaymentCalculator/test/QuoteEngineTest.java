@@ -0,0 +1,252 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Checks that QuoteEngine, and FinanceCalculator which now delegates to it, return the same values,
+ * 					bit-for-bit, as the FinanceCalculator formulas did before QuoteEngine was added. The original
+ * 					formulas are kept below as LegacyFinanceCalculator and compared over a grid of principals, APRs
+ * 					(including 0% and fractional rates) and terms.
+ *
+ * 					Usage: java -cp bin:bin-test:junit.jar:hamcrest.jar org.junit.runner.JUnitCore QuoteEngineTest
+ *
+ **********************************************************************************************************************
+ **/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class QuoteEngineTest {
+	static final double[] LOAN_AMOUNTS = { 0.01, 1, 999.99, 5000, 12345.67, 25000, 33333.33, 80000, 1000000 };
+	static final float[] APRS = { 0f, 0.01f, 0.5f, 1.9f, 2.9f, 4.9f, 7.25f, 12.5f, 19.99f, 29.99f };
+	static final int[] TERMS = { 1, 2, 7, 12, 36, 48, 60, 72, 84, 96, 360 };
+
+	private final QuoteEngine engine = new QuoteEngine();
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Monthly amount (PMT), including the penny adjusted first payment of 0% loans
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void paymentMatchesLegacyCalculator() {
+		for (double loanAmount : LOAN_AMOUNTS) {
+			for (float apr : APRS) {
+				for (int n : TERMS) {
+					LegacyFinanceCalculator legacy = new LegacyFinanceCalculator();
+					double expected = legacy.calculate(loanAmount, apr, n);
+					QuoteResult result = engine.payment(loanAmount, apr, n);
+					String loan = loan(loanAmount, apr, n);
+
+					assertEquals(loan, expected, result.getPaymentAmount(), 0);
+					assertEquals(loan, expected, new FinanceCalculator().calculate(loanAmount, apr, n), 0);
+					if (result.isPennyAdjusted()) {
+						assertEquals(loan, legacy.regularPayment(), result.getRegularPayment(), 0);
+					}
+				}
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Loan amount (PV)
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void presentValueMatchesLegacyCalculator() {
+		for (double loanAmount : LOAN_AMOUNTS) {
+			for (float apr : APRS) {
+				for (int n : TERMS) {
+					double payment = engine.payment(loanAmount, apr, n).getPaymentAmount();
+					double expected = new LegacyFinanceCalculator().calculate(apr, n, payment);
+					String loan = loan(loanAmount, apr, n);
+
+					assertEquals(loan, expected, engine.presentValue(apr, n, payment).getLoanAmount(), 0);
+					assertEquals(loan, expected, new FinanceCalculator().calculate(apr, n, payment), 0);
+				}
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Number of payments (n), for payments on both sides of the exact monthly amount
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void numberOfPaymentsMatchesLegacyCalculator() {
+		for (double loanAmount : LOAN_AMOUNTS) {
+			for (float apr : APRS) {
+				for (int n : TERMS) {
+					double exact = engine.payment(loanAmount, apr, n).getPaymentAmount();
+					for (double payment : new double[] { exact, exact * 0.999, exact * 1.001, exact + 0.01 }) {
+						int expected = new LegacyFinanceCalculator().calculate(loanAmount, apr, payment);
+						String loan = loan(loanAmount, apr, n) + " payment " + payment;
+
+						assertEquals(loan, expected, engine.numberOfPayments(loanAmount, apr, payment)
+								.getNumberOfPayments());
+						assertEquals(loan, expected, new FinanceCalculator().calculate(loanAmount, apr, payment));
+					}
+				}
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Interest rate from the Newton solve. The legacy solve has no iteration limit, so only loans it converges on
+	// are compared: rates above 0% and payments above PV / n.
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test(timeout = 10000)
+	public void interestRateMatchesLegacyCalculator() {
+		for (double loanAmount : new double[] { 1000, 5000, 25000, 80000 }) {
+			for (float apr : new float[] { 1.9f, 2.9f, 4.9f, 7.25f, 12.5f, 19.99f }) {
+				for (int n : new int[] { 12, 36, 60, 72, 96 }) {
+					double payment = engine.payment(loanAmount, apr, n).getPaymentAmount();
+					float expected = new LegacyFinanceCalculator().calculate(loanAmount, n, payment);
+					String loan = loan(loanAmount, apr, n);
+
+					assertEquals(loan, expected, (float) engine.interestRate(loanAmount, n, payment)
+							.getInterestRate(), 0);
+					assertEquals(loan, expected, new FinanceCalculator().calculate(loanAmount, n, payment), 0);
+				}
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// The capped Newton solve reports a solve that did not converge with more iterations than its cap
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void cappedInterestRateReportsNotConverged() {
+		QuoteResult result = engine.interestRate(25000, 60, 470.64, 0);
+		assertTrue(result.getIterations() > 0);
+
+		result = engine.interestRate(25000, 60, 470.64, 1000);
+		assertTrue(result.getIterations() <= 1000);
+		assertEquals(0.00408, result.getInterestRate(), 1e-7);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// FinanceCalculator keeps the monthly rate and the values of the last solve, as it did before QuoteEngine
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void financeCalculatorKeepsLastValues() {
+		FinanceCalculator calculator = new FinanceCalculator();
+		LegacyFinanceCalculator legacy = new LegacyFinanceCalculator();
+		calculator.calculate(25000, 4.9f, 60);
+		legacy.calculate(25000, 4.9f, 60);
+
+		assertEquals(legacy.interestRate, calculator.getInterestRate(), 0);
+		assertEquals(legacy.paymentAmount, calculator.getPaymentAmount(), 0);
+		assertEquals(60, calculator.getNumberOfPayments());
+		assertEquals(25000, calculator.getLoanAmount(), 0);
+	}
+
+	private static String loan(double loanAmount, float apr, int numberOfPayments) {
+		return loanAmount + " at " + apr + "% over " + numberOfPayments;
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// The FinanceCalculator formulas as they were before QuoteEngine, kept as the reference for the tests
+	//-----------------------------------------------------------------------------------------------------------------
+	static final class LegacyFinanceCalculator {
+		static final double EPSILON = 0.00001;
+
+		double loanAmount;
+		float interestRate;
+		int numberOfPayments;
+		double paymentAmount;
+		private double payment;
+
+		double calculate(float interestRate, int numberOfPayments, double paymentAmount) {
+			this.interestRate = (interestRate / 100) / 12;
+			this.numberOfPayments = numberOfPayments;
+			this.paymentAmount = paymentAmount;
+
+			if (this.interestRate == 0.0) {
+				this.loanAmount = this.numberOfPayments * this.paymentAmount;
+			}
+			else {
+				this.loanAmount = (this.paymentAmount / this.interestRate) *
+						(1 - (1 / Math.pow((1 + this.interestRate), this.numberOfPayments)));
+			}
+			return this.loanAmount;
+		}
+
+		float calculate(double loanAmount, int numberOfPayments, double paymentAmount) {
+			this.loanAmount = loanAmount;
+			this.numberOfPayments = numberOfPayments;
+			this.paymentAmount = paymentAmount;
+
+			double initialGuessForX = (2 * (this.numberOfPayments * this.paymentAmount -
+					this.loanAmount) / (this.numberOfPayments * this.loanAmount));
+
+			this.interestRate = (float) findRoot(initialGuessForX);
+			return this.interestRate;
+		}
+
+		int calculate(double loanAmount, float interestRate, double paymentAmount) {
+			this.loanAmount = loanAmount;
+			this.interestRate = (interestRate / 100) / 12;
+			this.paymentAmount = paymentAmount;
+
+			if (this.interestRate == 0.0) {
+				this.numberOfPayments = (int) (this.loanAmount / this.paymentAmount);
+			}
+			else {
+				this.numberOfPayments = (int) (Math.log((this.paymentAmount /
+						this.interestRate) / ((this.paymentAmount / this.interestRate) -
+								this.loanAmount)) / Math.log(1.0 + this.interestRate));
+			}
+			return this.numberOfPayments;
+		}
+
+		double calculate(double loanAmount, float interestRate, int numberOfPayments) {
+			this.loanAmount = loanAmount;
+			this.interestRate = (interestRate / 100) / 12;
+			this.numberOfPayments = numberOfPayments;
+
+			if (this.interestRate == 0.0) {
+				if ((this.loanAmount % this.numberOfPayments) == 0) {
+					this.paymentAmount = this.loanAmount / this.numberOfPayments;
+					return this.paymentAmount;
+				}
+				float remainder = (float) (this.loanAmount % this.numberOfPayments);
+				this.payment = ((this.loanAmount - remainder) / this.numberOfPayments);
+				int tempRemainder = (int) ((remainder * 100) % this.numberOfPayments);
+				int hold = (int) ((remainder * 100) / this.numberOfPayments);
+
+				payment = payment + (double) hold / 100;
+				return payment + (double) tempRemainder / 100;
+			}
+			this.paymentAmount = (this.loanAmount * this.interestRate *
+					Math.pow((1 + this.interestRate), this.numberOfPayments)) /
+					(Math.pow((1 + this.interestRate), this.numberOfPayments) - 1);
+			return this.paymentAmount;
+		}
+
+		double regularPayment() {
+			return this.payment;
+		}
+
+		private double function(double x) {
+			return ((this.loanAmount * x * Math.pow(1 + x, this.numberOfPayments))
+					/ (Math.pow(1 + x, this.numberOfPayments) - 1)) - this.paymentAmount;
+		}
+
+		private double derivativeFunction(double x) {
+			return (this.loanAmount * Math.pow(x + 1, this.numberOfPayments - 1)
+					* (x * Math.pow(x + 1, this.numberOfPayments) + Math.pow(x + 1, this.numberOfPayments)
+					- (this.numberOfPayments * x) - x - 1)) / ((Math.pow(x + 1, this.numberOfPayments) - 1)
+							* (Math.pow(x + 1, this.numberOfPayments) - 1));
+		}
+
+		private double findRoot(double x) {
+			double a = function(x) / derivativeFunction(x);
+			while (Math.abs(a) >= EPSILON) {
+				a = function(x) / derivativeFunction(x);
+
+				// x(i+1) = x(i) - f(x) / f'(x)
+				x = x - a;
+			}
+			return Math.round(x * 100000.0) / 100000.0;
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Checks that QuoteFormatter writes the same characters as DecimalFormat with the same pattern and
+ * 					Locale.US symbols: on the fast path, at half-way values, and on the fallback for values with more
+ * 					than 15 significant digits, NaN and infinities. Output must not change with the default locale.
+ *
+ * 					Usage: java -cp bin:bin-test:junit.jar:hamcrest.jar org.junit.runner.JUnitCore QuoteFormatterTest
+ *
+ **********************************************************************************************************************
+ **/
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class QuoteFormatterTest {
+	static final QuoteFormatter[] FORMATTERS = { QuoteFormatter.PRINCIPAL, QuoteFormatter.MONTHLY_AMOUNT,
+			QuoteFormatter.PERCENT, QuoteFormatter.COUNT };
+	static final double[] EDGE_VALUES = { 0, -0.0, 0.005, 0.015, 0.125, 0.5, 1.5, 2.5, 0.00005, 0.99995, 999.995,
+			1234.5, 1000000.005, 470.64220395231837, -470.645, 1e14, 9.99999999999999e14, 1e15, 1e16,
+			123456789012345678.0, Double.MAX_VALUE, Double.MIN_VALUE, Double.NaN, Double.POSITIVE_INFINITY,
+			Double.NEGATIVE_INFINITY };
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Half-way values, zeros, the edge of the fast path and the fallback values
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void edgeValuesMatchDecimalFormat() {
+		for (QuoteFormatter formatter : FORMATTERS) {
+			DecimalFormat expected = usFormat(formatter);
+			for (double value : EDGE_VALUES) {
+				assertEquals(formatter.toPattern() + " " + value, expected.format(value), formatter.format(value));
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Random amounts in cents and fractions of a cent, and random doubles over a wide range of magnitudes
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void randomValuesMatchDecimalFormat() {
+		Random random = new Random(42);
+		for (QuoteFormatter formatter : FORMATTERS) {
+			DecimalFormat expected = usFormat(formatter);
+			for (int k = 0; k < 200000; k++) {
+				double value;
+				switch (k % 3) {
+				case 0:
+					value = random.nextInt(100000000) / 100.0;
+					break;
+				case 1:
+					value = random.nextInt(100000000) / 1000.0 + 0.0005;
+					break;
+				default:
+					value = (random.nextDouble() - 0.25) * Math.pow(10, random.nextInt(20) - 4);
+				}
+				assertEquals(formatter.toPattern() + " " + value, expected.format(value), formatter.format(value));
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// A default locale with ',' as the decimal point and '.' for grouping changes neither path
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void outputDoesNotDependOnDefaultLocale() {
+		Locale defaultLocale = Locale.getDefault();
+		try {
+			Locale.setDefault(Locale.GERMANY);
+			assertEquals("$1,234,567.89", QuoteFormatter.MONTHLY_AMOUNT.format(1234567.891));
+			assertEquals("4.9000%", QuoteFormatter.PERCENT.format(0.049));
+			assertEquals(usFormat(QuoteFormatter.PRINCIPAL).format(1e16), formatOnNewThread(1e16));
+			assertEquals("NaN", formatOnNewThread(Double.NaN));
+		}
+		finally {
+			Locale.setDefault(defaultLocale);
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Formats with PRINCIPAL on a new thread, so its fallback DecimalFormat is created under the current default
+	//-----------------------------------------------------------------------------------------------------------------
+	private static String formatOnNewThread(double value) {
+		String[] result = new String[1];
+		Thread thread = new Thread(() -> result[0] = QuoteFormatter.PRINCIPAL.format(value));
+		thread.start();
+		try {
+			thread.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return result[0];
+	}
+
+	private static DecimalFormat usFormat(QuoteFormatter formatter) {
+		return new DecimalFormat(formatter.toPattern(), DecimalFormatSymbols.getInstance(Locale.US));
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	Checks that SavedResultsStore returns every saved result as it was saved, whether it is still in the
+ * 					buffer or was spilled, including spills that cross a region boundary of the spill file, and that
+ * 					paging, the maxRecords limit and close behave as documented.
+ *
+ * 					Usage: java -cp bin:bin-test:junit.jar:hamcrest.jar org.junit.runner.JUnitCore SavedResultsStoreTest
+ *
+ **********************************************************************************************************************
+ **/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SavedResultsStoreTest {
+	static final SolveType[] SOLVE_TYPES = SolveType.values();
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// A buffer of 3 records and regions of 5, so spills split across regions at every other spill
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void spillAcrossRegionBoundaryKeepsEveryRecord() throws IOException {
+		try (SavedResultsStore store = new SavedResultsStore(3, 40, 5)) {
+			for (int k = 0; k < 40; k++) {
+				assertTrue(add(store, k));
+			}
+			assertEquals(40, store.size());
+			// 39 records spilled in 13 spills, the last record is still in the buffer
+			assertEquals(8, store.mappedRegions());
+			for (int k = 0; k < 40; k++) {
+				assertRecord(store, k);
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Records are readable while they are in the buffer, before any spill
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void recordsInBufferAreReadable() throws IOException {
+		try (SavedResultsStore store = new SavedResultsStore(8, 100)) {
+			for (int k = 0; k < 8; k++) {
+				add(store, k);
+				assertRecord(store, k);
+			}
+			assertEquals(0, store.mappedRegions());
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// A million results at the menu's buffer size are spilled into a single mapped region
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void millionResultsUseOneRegion() throws IOException {
+		try (SavedResultsStore store = new SavedResultsStore(CalculatorMenu.SAVED_RESULTS_BUFFER,
+				CalculatorMenu.MAX_SAVED_RESULTS)) {
+			for (int k = 0; k < 1000000; k++) {
+				add(store, k);
+			}
+			assertEquals(1, store.mappedRegions());
+			for (int k = 0; k < 1000000; k += 4093) {
+				assertRecord(store, k);
+			}
+			assertRecord(store, 999999);
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Pages of one solve type skip the other types, and each page starts where the last one stopped
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void pagesVisitOneSolveTypeInOrder() throws IOException {
+		try (SavedResultsStore store = new SavedResultsStore(4, 100, 6)) {
+			for (int k = 0; k < 30; k++) {
+				add(store, k);
+			}
+			SolveType type = SOLVE_TYPES[1];
+			List<Long> visited = new ArrayList<Long>();
+			long next = 0;
+			int pages = 0;
+			while (next < store.size()) {
+				next = store.forEach(type, next, 3, (index, solveType, principal, apr, numberOfPayments,
+						monthlyAmount) -> {
+					assertEquals(type, solveType);
+					assertEquals(principal(index), principal, 0);
+					visited.add(index);
+				});
+				pages++;
+			}
+			assertEquals(3, pages);
+			for (int k = 0; k < visited.size(); k++) {
+				assertEquals(1 + (long) k * SOLVE_TYPES.length, (long) visited.get(k));
+			}
+			assertEquals((30 + SOLVE_TYPES.length - 2) / SOLVE_TYPES.length, visited.size());
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// The store refuses results past maxRecords, and close removes every result
+	//-----------------------------------------------------------------------------------------------------------------
+	@Test
+	public void fullStoreRefusesAndCloseEmpties() throws IOException {
+		SavedResultsStore store = new SavedResultsStore(2, 5, 3);
+		for (int k = 0; k < 5; k++) {
+			assertTrue(add(store, k));
+		}
+		assertFalse(add(store, 5));
+		assertEquals(5, store.size());
+		assertRecord(store, 4);
+
+		store.close();
+		assertEquals(0, store.size());
+		assertEquals(0, store.mappedRegions());
+		try {
+			store.getPrincipal(0);
+			throw new AssertionError("Expected IndexOutOfBoundsException");
+		}
+		catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Saves result k, whose values are all derived from k
+	//-----------------------------------------------------------------------------------------------------------------
+	private static boolean add(SavedResultsStore store, long k) {
+		return store.add(SOLVE_TYPES[(int) (k % SOLVE_TYPES.length)], principal(k), (float) (k % 300) / 10, (int) k,
+				principal(k) / 60);
+	}
+
+	private static void assertRecord(SavedResultsStore store, long k) {
+		String record = "record " + k;
+		assertEquals(record, SOLVE_TYPES[(int) (k % SOLVE_TYPES.length)], store.getSolveType(k));
+		assertEquals(record, principal(k), store.getPrincipal(k), 0);
+		assertEquals(record, (float) (k % 300) / 10, store.getApr(k), 0);
+		assertEquals(record, (int) k, store.getNumberOfPayments(k));
+		assertEquals(record, principal(k) / 60, store.getMonthlyAmount(k), 0);
+	}
+
+	private static double principal(long k) {
+		return 1000 + k * 0.01;
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * ********************************************************************************************************************
+ *
+ * Name: 			Riley Martinez
+ * Course Number:	SEIS602 - 01
+ * Description: 	SIMD PaymentKernel built on the incubating Vector API (jdk.incubator.vector, Java 16 and later).
+ * 					Each lane prices one row: the monthly rate and (1 + i) are evaluated in float lanes, exactly like
+ * 					QuoteEngine, and (1 + i)^n is computed by repeated squaring across the lanes, so rows with
+ * 					different rates and terms need no Math.pow call. The rest of each formula is the same operations
+ * 					in the same order as QuoteEngine. Lanes with a 0% apr are selected with a mask: the loan amount
+ * 					(PV) is blended in with n * PMT, and the monthly amount (PMT) is patched with the scalar penny
+ * 					loss adjustment, which only runs for vectors that hold a 0% row.
+ *
+ * 					The power is correctly rounded, while Math.pow may be 1 ulp off (about 1 row in 2,500 of random
+ * 					loans), so PMT and PV match QuoteEngine bit-for-bit except on those rows, where they differ by
+ * 					the effect of 1 ulp of (1 + i)^n; see PaymentKernel.getMaxGrowthUlpError. 0% apr values are
+ * 					always exact. bench/VectorKernelCheck verifies the bound.
+ *
+ * 					This folder is compiled separately, after src, because the module is not part of Java 11:
+ *
+ * 						javac -d bin src/*.java
+ * 						javac --add-modules jdk.incubator.vector -cp bin -d bin vector/*.java
+ * 						java --add-modules jdk.incubator.vector -cp bin CalculatorMenu
+ *
+ **********************************************************************************************************************
+ **/
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+public final class VectorPaymentKernel implements PaymentKernel {
+	// Math.pow is within 1 ulp of the exact power, and the double-double power is correctly rounded
+	static final int MAX_GROWTH_ULP_ERROR = 1;
+
+	// Double lanes for the arithmetic, and float and int species with the same number of lanes for the inputs
+	private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Float> FLOATS = VectorSpecies.of(float.class,
+			VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+	private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class,
+			VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+	private static final VectorSpecies<Long> LONGS = VectorSpecies.of(long.class, DOUBLES.vectorShape());
+
+	public VectorPaymentKernel() {} // created by BatchQuoteEngine.selectKernel
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the monthly payment amount (PMT) for parallel columns of principal, apr and number of payments.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void payments(double[] loanAmounts, float[] aprs, int[] numberOfPayments, double[] out) {
+		int lanes = DOUBLES.length();
+		int bound = DOUBLES.loopBound(loanAmounts.length);
+		int k = 0;
+		for (; k < bound; k += lanes) {
+			FloatVector interestRates = FloatVector.fromArray(FLOATS, aprs, k).div(100f).div(12f);
+			DoubleVector rate = (DoubleVector) interestRates.convertShape(VectorOperators.F2D, DOUBLES, 0);
+			DoubleVector growth = growth(interestRates, IntVector.fromArray(INTS, numberOfPayments, k));
+			if (growth == null) {
+				scalarPayments(loanAmounts, aprs, numberOfPayments, out, k, k + lanes);
+				continue;
+			}
+			DoubleVector loanAmount = DoubleVector.fromArray(DOUBLES, loanAmounts, k);
+
+			loanAmount.mul(rate).mul(growth).div(growth.sub(1)).intoArray(out, k);
+
+			VectorMask<Float> zeroRate = interestRates.compare(VectorOperators.EQ, 0f);
+			if (zeroRate.anyTrue()) {
+				for (int lane = 0; lane < lanes; lane++) {
+					if (zeroRate.laneIsSet(lane)) {
+						out[k + lane] = QuoteEngine.zeroRatePayment(loanAmounts[k + lane], numberOfPayments[k + lane]);
+					}
+				}
+			}
+		}
+		scalarPayments(loanAmounts, aprs, numberOfPayments, out, k, loanAmounts.length);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Calculates the loan amount (PV) for parallel columns of apr, number of payments and monthly payment.
+	//-----------------------------------------------------------------------------------------------------------------
+	public void presentValues(float[] aprs, int[] numberOfPayments, double[] paymentAmounts, double[] out) {
+		int lanes = DOUBLES.length();
+		int bound = DOUBLES.loopBound(paymentAmounts.length);
+		int k = 0;
+		for (; k < bound; k += lanes) {
+			FloatVector interestRates = FloatVector.fromArray(FLOATS, aprs, k).div(100f).div(12f);
+			DoubleVector rate = (DoubleVector) interestRates.convertShape(VectorOperators.F2D, DOUBLES, 0);
+			IntVector numberOfPaymentsVector = IntVector.fromArray(INTS, numberOfPayments, k);
+			DoubleVector growth = growth(interestRates, numberOfPaymentsVector);
+			if (growth == null) {
+				scalarPresentValues(aprs, numberOfPayments, paymentAmounts, out, k, k + lanes);
+				continue;
+			}
+			DoubleVector n = (DoubleVector) numberOfPaymentsVector.convertShape(VectorOperators.I2D, DOUBLES, 0);
+			DoubleVector paymentAmount = DoubleVector.fromArray(DOUBLES, paymentAmounts, k);
+
+			DoubleVector loanAmount = paymentAmount.div(rate).mul(DoubleVector.broadcast(DOUBLES, 1)
+					.sub(DoubleVector.broadcast(DOUBLES, 1).div(growth)));
+			VectorMask<Double> zeroRate = rate.compare(VectorOperators.EQ, 0);
+			loanAmount.blend(n.mul(paymentAmount), zeroRate).intoArray(out, k);
+		}
+		scalarPresentValues(aprs, numberOfPayments, paymentAmounts, out, k, paymentAmounts.length);
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// QuoteEngine formulas for the rows from start up to, not including, end: the loop tail and any vector of rows
+	// the lanes cannot price
+	//-----------------------------------------------------------------------------------------------------------------
+	private static void scalarPayments(double[] loanAmounts, float[] aprs, int[] numberOfPayments, double[] out,
+			int start, int end) {
+		for (int k = start; k < end; k++) {
+			float interestRate = QuoteEngine.monthlyRate(aprs[k]);
+			if (interestRate == 0.0) {
+				out[k] = QuoteEngine.zeroRatePayment(loanAmounts[k], numberOfPayments[k]);
+			}
+			else {
+				double growth = Math.pow((1 + interestRate), numberOfPayments[k]);
+				out[k] = (loanAmounts[k] * interestRate * growth) / (growth - 1);
+			}
+		}
+	}
+
+	private static void scalarPresentValues(float[] aprs, int[] numberOfPayments, double[] paymentAmounts,
+			double[] out, int start, int end) {
+		for (int k = start; k < end; k++) {
+			float interestRate = QuoteEngine.monthlyRate(aprs[k]);
+			if (interestRate == 0.0) {
+				out[k] = numberOfPayments[k] * paymentAmounts[k];
+			}
+			else {
+				out[k] = (paymentAmounts[k] / interestRate)
+						* (1 - (1 / Math.pow((1 + interestRate), numberOfPayments[k])));
+			}
+		}
+	}
+
+	//-----------------------------------------------------------------------------------------------------------------
+	// Returns (1 + i)^n for the lanes starting at k, with (1 + i) evaluated in float like QuoteEngine, or null when a
+	// lane has a negative number of payments or a power that overflows, which the caller prices with Math.pow.
+	//
+	// The power is found by repeated squaring in double-double arithmetic (a value held as an unevaluated sum hi + lo
+	// of two doubles, about 106 bits, with the exact product error from fma). For the exponents of a loan the error
+	// stays near 2^-100, so hi is the correctly rounded power: the same double Math.pow returns, which makes the
+	// cancellation in (1 + i)^n - 1 the same as in the scalar formula.
+	//-----------------------------------------------------------------------------------------------------------------
+	private static DoubleVector growth(FloatVector interestRates, IntVector n) {
+		if (n.compare(VectorOperators.LT, 0).anyTrue()) {
+			return null;
+		}
+		DoubleVector baseHi = (DoubleVector) interestRates.add(1f).convertShape(VectorOperators.F2D, DOUBLES, 0);
+		DoubleVector baseLo = DoubleVector.zero(DOUBLES);
+		DoubleVector resultHi = DoubleVector.broadcast(DOUBLES, 1);
+		DoubleVector resultLo = DoubleVector.zero(DOUBLES);
+		LongVector exponent = (LongVector) n.convertShape(VectorOperators.I2L, LONGS, 0);
+
+		while (true) {
+			VectorMask<Double> bit = exponent.and(1).compare(VectorOperators.NE, 0).cast(DOUBLES);
+			DoubleVector productHi = resultHi.mul(baseHi);
+			DoubleVector productLo = resultHi.lanewise(VectorOperators.FMA, baseHi, productHi.neg())
+					.add(resultHi.mul(baseLo).add(resultLo.mul(baseHi)));
+			DoubleVector hi = productHi.add(productLo);
+			resultLo = resultLo.blend(productLo.sub(hi.sub(productHi)), bit);
+			resultHi = resultHi.blend(hi, bit);
+
+			exponent = exponent.lanewise(VectorOperators.LSHR, 1);
+			if (!exponent.compare(VectorOperators.GT, 0).anyTrue()) {
+				break;
+			}
+			DoubleVector squareHi = baseHi.mul(baseHi);
+			DoubleVector squareLo = baseHi.lanewise(VectorOperators.FMA, baseHi, squareHi.neg())
+					.add(baseHi.mul(baseLo).mul(2));
+			baseHi = squareHi.add(squareLo);
+			baseLo = squareLo.sub(baseHi.sub(squareHi));
+		}
+		if (!resultHi.compare(VectorOperators.LT, Double.POSITIVE_INFINITY).allTrue()) {
+			return null;
+		}
+		return resultHi;
+	}
+
+	public int getMaxGrowthUlpError() {
+		return MAX_GROWTH_ULP_ERROR;
+	}
+
+	public String toString() {
+		return "VectorPaymentKernel [" + DOUBLES.length() + " double lanes]";
+	}
+}